@@ -0,0 +1,115 @@
+package learning.controls;
+
+import learning.topology.DelayMatrix;
+import learning.topology.DelayOracle;
+import peersim.config.Configuration;
+import peersim.core.CommonState;
+import peersim.core.Control;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Applies timed link delay changes and link failures of the physical topology from a trace file.
+ * Every line of the trace is "time from to delay" (node ids start with 1 like in the topology file),
+ * a delay of -1 fails the link; lines starting with # are skipped. Each run of the control applies
+ * the changes whose time has come, so its step decides how exactly the times are followed.<br/>
+ * The minimum delays are updated incrementally by {@link DelayOracle#setLinkDelay}, so
+ * MinDelayTransport and the epoch timing of the protocols see the new delays at once.
+ * Messages that are already on their way keep their delay. A failed link can disconnect nodes,
+ * their delay becomes {@link DelayMatrix#UNREACHABLE} and the messages between them are dropped.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class DynamicTopologyControl implements Control {
+    private static final String PAR_TRACE = "trace";
+
+    private final DelayOracle delayOracle;
+    private final long[] times;
+    private final int[] from;
+    private final int[] to;
+    private final int[] delays;
+    private int next;
+
+    public DynamicTopologyControl(String prefix) {
+        String traceFilePath = Configuration.getString(prefix + "." + PAR_TRACE);
+        delayOracle = DelayOracle.getInstance(Configuration.getString("TOPO_FILEPATH"));
+
+        long[] t = new long[1024];
+        int[] f = new int[1024];
+        int[] d = new int[1024];
+        int[] l = new int[1024];
+        int m = 0;
+        try {
+            BufferedReader bf = new BufferedReader(new FileReader(traceFilePath));
+            String str;
+            while ((str = bf.readLine()) != null) {
+                str = str.trim();
+                if (str.isEmpty() || str.startsWith("#")) continue;
+                String[] temp = str.split("\\s+");
+                if (m == t.length) {
+                    t = Arrays.copyOf(t, m << 1);
+                    f = Arrays.copyOf(f, m << 1);
+                    l = Arrays.copyOf(l, m << 1);
+                    d = Arrays.copyOf(d, m << 1);
+                }
+                t[m] = Long.parseLong(temp[0]);
+                f[m] = Integer.parseInt(temp[1]) - 1;
+                l[m] = Integer.parseInt(temp[2]) - 1;
+                int delay = Integer.parseInt(temp[3]);
+                d[m] = delay < 0 ? DelayMatrix.UNREACHABLE : delay;
+                m++;
+            }
+            bf.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Exception occured in DynamicTopologyControl: can not read the topology trace "
+                    + traceFilePath + ": " + e);
+        }
+
+        // stable order by time, changes at the same time are applied in file order
+        long[] keys = new long[m];
+        for (int i = 0; i < m; i++) {
+            if (t[i] < 0 || t[i] >= (1L << 40)) {
+                throw new RuntimeException("The time " + t[i] + " in the topology trace " + traceFilePath + " is out of range");
+            }
+            keys[i] = (t[i] << 23) | i;
+        }
+        if (m >= (1 << 23)) {
+            throw new RuntimeException("The topology trace " + traceFilePath + " has too many changes");
+        }
+        Arrays.sort(keys);
+        times = new long[m];
+        from = new int[m];
+        to = new int[m];
+        delays = new int[m];
+        for (int i = 0; i < m; i++) {
+            int e = (int) (keys[i] & ((1 << 23) - 1));
+            times[i] = t[e];
+            from[i] = f[e];
+            to[i] = l[e];
+            delays[i] = d[e];
+        }
+    }
+
+    @Override
+    public boolean execute() {
+        long now = CommonState.getTime();
+        int applied = 0;
+        int updatedSources = 0;
+        long start = System.currentTimeMillis();
+        while (next < times.length && times[next] <= now) {
+            updatedSources += delayOracle.setLinkDelay(from[next], to[next], delays[next]);
+            next++;
+            applied++;
+        }
+        if (applied > 0) {
+            System.err.println("DynamicTopologyControl: time " + now + ", changed links: " + applied
+                    + ", updated sources: " + updatedSources
+                    + ", update time: " + (System.currentTimeMillis() - start) + " ms");
+        }
+        return false;
+    }
+}
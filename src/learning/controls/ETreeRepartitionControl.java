@@ -0,0 +1,176 @@
+package learning.controls;
+
+import learning.interfaces.Model;
+import learning.node.ETreeNode;
+import learning.protocols.ETreeLearningProtocol;
+import learning.topology.DelayMatrix;
+import learning.topology.DelayOracle;
+import learning.topology.TopoUtil;
+import peersim.config.Configuration;
+import peersim.core.CommonState;
+import peersim.core.Control;
+import peersim.core.Network;
+import peersim.core.Node;
+
+import java.util.ArrayList;
+
+/**
+ * Repairs the ETree built by {@link learning.topology.ETreeLogicalTopology} while the simulation runs.
+ * <ul>
+ * <li>A failed node (e.g. turned off by {@link ChurnControl}) gives every aggregator role it has to the
+ * alive member of the group with the lowest delay at recvPercent to the other members, and it is removed
+ * from the group it belongs to in the first layer. A group without alive members is removed from the
+ * group above it.</li>
+ * <li>If no aggregation happened for timeout milliseconds, the models some aggregators wait for were lost,
+ * e.g. on a failed link or at a node that failed after it was selected. The aggregators of the lowest layer
+ * that have not aggregated yet end their round with the models that arrived, the next round selects the
+ * children again. The aggregators themselves are alive, they keep their roles.
+ * With pipelined epochs these are the aggregators that wait for the models of their children.</li>
+ * </ul>
+ * Only the groups of failed nodes are changed: the parent and child lists of their nodes and the layers of
+ * ETreeLearningProtocol are updated in place, and the current epoch is started again.
+ * A new aggregator starts from the model it last got from the replaced one.
+ * Failed nodes that come back are not put back into the tree.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class ETreeRepartitionControl implements Control {
+    private static final String PAR_PROT = "protocol";
+    private final int pid;
+
+    /**
+     * Time in milliseconds without any aggregation after which the waiting aggregators end their round,
+     * 0 (default) only handles failed nodes.
+     */
+    private static final String PAR_TIMEOUT = "timeout";
+    private final long timeout;
+
+    /**@hidden */
+    private final DelayMatrix minDelayMatrix;
+    private double recvPercent;
+
+    public ETreeRepartitionControl(String prefix) {
+        pid = Configuration.getPid(prefix + "." + PAR_PROT);
+        timeout = Configuration.getLong(prefix + "." + PAR_TIMEOUT, 0);
+        minDelayMatrix = DelayOracle.getInstance(Configuration.getString("TOPO_FILEPATH")).getMinDelayMatrix();
+    }
+
+    @Override
+    public boolean execute() {
+        ArrayList<ArrayList<Integer>> layersNodeID = ETreeLearningProtocol.getLayersNodeID();
+        if (layersNodeID == null) return false;
+        recvPercent = ((ETreeLearningProtocol) Network.get(0).getProtocol(pid)).getRecvPercent();
+
+        int failed = 0;
+        for (Integer id : new ArrayList<>(layersNodeID.get(0))) {
+            if (!Network.get(id).isUp()) {
+                removeNode(layersNodeID, id);
+                failed++;
+            }
+        }
+
+        int timedOut = 0;
+        if (failed == 0 && timeout > 0 && CommonState.getTime() - ETreeLearningProtocol.getLastProgressTime() > timeout) {
+            for (int layer = 1; layer < layersNodeID.size() && timedOut == 0; layer++) {
+                // the waiting ones are collected first, the last of them may complete the layer
+                ArrayList<Integer> waiting = new ArrayList<>();
+                for (Integer id : layersNodeID.get(layer)) {
+                    if (!((ETreeLearningProtocol) Network.get(id).getProtocol(pid)).hasAggregated(layer)) waiting.add(id);
+                }
+                for (Integer id : waiting) {
+                    Node node = Network.get(id);
+                    ((ETreeLearningProtocol) node.getProtocol(pid)).aggregateReceived(node, pid, layer);
+                    timedOut++;
+                }
+            }
+        }
+
+        if (failed > 0) ETreeLearningProtocol.restartEpoch(pid);
+        if (failed > 0 || timedOut > 0) {
+            StringBuilder sizes = new StringBuilder();
+            for (int layer = 0; layer < layersNodeID.size(); layer++) {
+                sizes.append(layer == 0 ? "" : ",").append(layersNodeID.get(layer).size());
+            }
+            System.err.println("ETreeRepartitionControl: time " + CommonState.getTime() + ", failed nodes: " + failed
+                    + ", timed out aggregators: " + timedOut + ", layer sizes: " + sizes);
+        }
+        return false;
+    }
+
+    /**
+     * Takes a failed node out of the tree. From its highest layer down, each of its aggregator roles goes
+     * to an alive member of the group, and a role in a lower layer takes the roles above it that found
+     * no alive member. What is left has no alive node below it and is removed.
+     */
+    private void removeNode(ArrayList<ArrayList<Integer>> layersNodeID, int id) {
+        ETreeNode node = (ETreeNode) Network.get(id);
+        int top = layersNodeID.size() - 1;
+        while (top > 0 && !layersNodeID.get(top).contains(id)) top--;
+
+        for (int layer = top; layer > 0; layer--) {
+            int newId = electAggregator(node, layer);
+            if (newId >= 0) {
+                replaceAggregator(layersNodeID, id, newId, layer);
+                top = layer - 1;
+            }
+        }
+
+        // the node is still active up to top, in every layer above 0 it is the only member left
+        if (top + 1 < layersNodeID.size()) {
+            ETreeNode parent = (ETreeNode) Network.get(node.getParentNode(top));
+            parent.removeChildNode(top + 1, id);
+        }
+        for (int layer = top; layer >= 0; layer--) {
+            layersNodeID.get(layer).remove(Integer.valueOf(id));
+            if (layer > 0) node.clearChildNodes(layer);
+        }
+    }
+
+    /**
+     * Returns the alive member of the group of the aggregator, other than the aggregator,
+     * with the lowest delay at recvPercent to the alive members, or -1 if there is none.
+     */
+    private int electAggregator(ETreeNode aggregator, int layer) {
+        ArrayList<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < aggregator.getChildCount(layer); i++) {
+            int id = aggregator.getChildNode(layer, i);
+            if (id != aggregator.getID() && Network.get(id).isUp()) candidates.add(id);
+        }
+        if (candidates.isEmpty()) return -1;
+        return TopoUtil.findParameterServerId(minDelayMatrix, candidates, recvPercent);
+    }
+
+    /**
+     * Hands every role of the old aggregator from the given layer upwards to a member of its group.
+     * The old aggregator stays a member of the group in the layer below.
+     */
+    private void replaceAggregator(ArrayList<ArrayList<Integer>> layersNodeID, int oldId, int newId, int fromLayer) {
+        ETreeNode oldNode = (ETreeNode) Network.get(oldId);
+        ETreeNode newNode = (ETreeNode) Network.get(newId);
+        ETreeLearningProtocol newPro = (ETreeLearningProtocol) newNode.getProtocol(pid);
+        for (int layer = fromLayer; layer < layersNodeID.size(); layer++) {
+            ArrayList<Integer> nodes = layersNodeID.get(layer);
+            nodes.set(nodes.indexOf(oldId), newId);
+
+            // above the first layer the old aggregator was its own member, that role moves too
+            if (layer > fromLayer) oldNode.replaceChildNode(layer, oldId, newId);
+            int[] children = oldNode.getChildNodes(layer);
+            oldNode.clearChildNodes(layer);
+            newNode.setChildNodes(layer, children);
+            for (int id : children) {
+                ((ETreeNode) Network.get(id)).setParentNode(layer - 1, newId);
+            }
+            newPro.setLayersWorkerModel(layer, (Model) newPro.getLayersWorkerModel(layer - 1).clone());
+
+            if (layer == layersNodeID.size() - 1) break;
+            int parentId = oldNode.getParentNode(layer);
+            if (parentId != oldId) {
+                ((ETreeNode) Network.get(parentId)).replaceChildNode(layer + 1, oldId, newId);
+                newNode.setParentNode(layer, parentId);
+                break;
+            }
+        }
+        oldNode.trimParentNodes(fromLayer);
+    }
+}
@@ -3,7 +3,8 @@ package learning.controls.initializers;
 import learning.interfaces.AbstractProtocol;
 import learning.node.ETreeNode;
 import learning.protocols.FederatedLearningProtocol;
-import learning.topology.TopoUtil;
+import learning.topology.DelayMatrix;
+import learning.topology.DelayOracle;
 import peersim.config.Configuration;
 import peersim.core.Control;
 import peersim.core.Network;
@@ -23,15 +24,13 @@ public class SetMinDelayMatrixForProtocol implements Control {
     private final int pid;
 
     private final String topoFilePath;
-    private int[][] graph;
-    private int[][] minDelayMatrix;
+    private DelayMatrix minDelayMatrix;
 
 
     public SetMinDelayMatrixForProtocol(String prefix) {
         pid = Configuration.getPid(prefix + "." + PAR_PROT);
         topoFilePath = Configuration.getString("TOPO_FILEPATH");
-        graph = TopoUtil.getGraph(Network.size(), topoFilePath);
-        minDelayMatrix = TopoUtil.generateMinDelayMatrix(graph);
+        minDelayMatrix = DelayOracle.getInstance(topoFilePath).getMinDelayMatrix();
     }
 
     @Override
@@ -61,14 +60,14 @@ public class SetMinDelayMatrixForProtocol implements Control {
                 for (int id = 0; id < Network.size(); id++) {
                     ETreeNode node = (ETreeNode) Network.get(id);
                     ETreeNode par_node = (ETreeNode) Network.get(node.getParentNode(0));
-                    fileWriter.write(minDelayMatrix[id][node.getParentNode(0)] + " ");
-                    fileWriter.write(minDelayMatrix[node.getParentNode(0)][par_node.getParentNode(1)] + " ");
+                    fileWriter.write(minDelayMatrix.getDelay(id, node.getParentNode(0)) + " ");
+                    fileWriter.write(minDelayMatrix.getDelay(node.getParentNode(0), par_node.getParentNode(1)) + " ");
                 }
             } else {
                 int masterId = FederatedLearningProtocol.getMasterID();
                 for (int id = 0; id < Network.size(); id++) {
                     if (id != masterId)
-                        fileWriter.write(minDelayMatrix[id][masterId] + " ");
+                        fileWriter.write(minDelayMatrix.getDelay(id, masterId) + " ");
                 }
             }
             fileWriter.flush();
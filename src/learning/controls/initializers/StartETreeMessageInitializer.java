@@ -3,7 +3,6 @@ package learning.controls.initializers;
 import learning.messages.ActiveThreadMessage;
 import learning.node.ETreeNode;
 import learning.protocols.ETreeLearningProtocol;
-import learning.utils.Utils;
 import peersim.config.Configuration;
 import peersim.core.CommonState;
 import peersim.core.Control;
@@ -40,12 +39,10 @@ public class StartETreeMessageInitializer implements Control {
         CommonState.setPhase(1);
 
         for (int layer = 1; layer < layers; layer++) {
-            for (Integer id : layersNodeID.get(layer)) {
-                ETreeNode node = (ETreeNode) Network.get(id);
-                ArrayList<Integer> childList = new ArrayList<>(node.getChildNodeList(layer));
-                ((ETreeLearningProtocol) node.getProtocol(pid)).setLayersSelectedID(
-                        layer, Utils.randomArray(Math.max((int) (childList.size() * recvPercent), 1), childList)
-                );
+            ArrayList<Integer> nodes = layersNodeID.get(layer);
+            for (int i = 0; i < nodes.size(); i++) {
+                ETreeNode node = (ETreeNode) Network.get(nodes.get(i));
+                ((ETreeLearningProtocol) node.getProtocol(pid)).selectChildren(node, layer, recvPercent);
             }
         }
 
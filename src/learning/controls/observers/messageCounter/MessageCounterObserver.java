@@ -9,6 +9,8 @@ import peersim.reports.GraphObserver;
  * This observer class is usable for computing the number of 
  * messages that go through the transport of the specified protocol. 
  * This transport layer should can count the transit messages.
+ * Besides the messages it reports the model bytes of the interval,
+ * the bytes per simulated second (time is in milliseconds) and the total bytes.
  * @author István Hegedűs
  *
  */
@@ -18,6 +20,8 @@ public class MessageCounterObserver extends GraphObserver {
   private static final String PAR_FORMAT = "format";
   /** @hidden */
   protected final String format;
+  /** @hidden */
+  private long lastTime = 0;
   
   public MessageCounterObserver(String prefix) {
     super(prefix);
@@ -31,20 +35,29 @@ public class MessageCounterObserver extends GraphObserver {
     
     MessageCounterTransport transport = (MessageCounterTransport) Network.get(0).getProtocol(pid);
     
+    String filter = transport.getFilterClass() == null ? "all" : transport.getFilterClass().getCanonicalName();
     if (format.equals("gpt") && CommonState.getTime() == 0) {
-      System.out.println("#iter\tnumOfMessages\t# " + transport.getFilterClass().getCanonicalName());
+      System.out.println("#iter\tnumOfMessages\tbytes\tbytesPerSec\ttotalBytes\t# " + filter);
     }
     
     if (CommonState.getTime() > 0) {
       int numOfModels = transport.numberOfAllIncommingMessages();
+      long bytes = transport.numberOfIncommingBytes();
+      long elapsed = CommonState.getTime() - lastTime;
+      double bytesPerSec = elapsed > 0 ? bytes * 1000.0 / elapsed : 0.0;
       transport.resetCounters();
       
       if (format.equals("gpt")) {
-        System.out.println(CommonState.getTime() + "\t" + numOfModels + "\t# " + transport.getFilterClass().getCanonicalName());
+        System.out.println(CommonState.getTime() + "\t" + numOfModels + "\t" + bytes + "\t" + bytesPerSec + "\t" + transport.getTotalBytes() + "\t# " + filter);
       } else {
-        System.out.println(transport.getFilterClass().getCanonicalName() + ":\tnumberOfMessages=" + numOfModels);
+        StringBuilder layers = new StringBuilder();
+        for (int layer = 0; layer < transport.getLayers(); layer++) {
+          layers.append(layer == 0 ? "\tlayerBytes=" : ",").append(transport.getLayerBytes(layer));
+        }
+        System.out.println(filter + ":\tnumberOfMessages=" + numOfModels + "\tbytes=" + bytes + "\tbytesPerSec=" + bytesPerSec + "\ttotalBytes=" + transport.getTotalBytes() + layers);
       }
     }
+    lastTime = CommonState.getTime();
     return false;
   }
 
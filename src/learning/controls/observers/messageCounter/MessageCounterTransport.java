@@ -1,17 +1,26 @@
 package learning.controls.observers.messageCounter;
 
 import learning.messages.Message;
+import learning.messages.MessageUp;
+import learning.messages.ModelMessage;
+import learning.utils.LongCounterMap;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
 
 import peersim.config.Configuration;
+import peersim.core.CommonState;
 import peersim.core.Node;
 import peersim.transport.Transport;
 
 /**
  * This class represents a transport layer that can count the 
  * transit predefined type of messages.
+ * Besides the messages it counts the bytes of the serialized models of every
+ * {@link ModelMessage} per receiving and sending node, per link, per ETree layer
+ * of {@link MessageUp} messages and per simulated time window.
+ * Nodes are counted by their ids, which do not change when the network is reordered.
  * @author István Hegedűs
  *
  */
@@ -21,9 +30,30 @@ public class MessageCounterTransport  implements Transport {
   private static final String PAR_MSGCLASS = "msgClass";
   /** @hidden */
   private final Class<? extends Message> msgClass;
+  /**
+   * Length of the time windows of the byte counters, 0 (default) turns them off.
+   */
+  private static final String PAR_WINDOW = "window";
+  private final long window;
+
   /** @hidden */
-  private Map<Long,Integer> messageCounter = new TreeMap<Long,Integer>();
+  private final LongCounterMap messageCounter = new LongCounterMap();
   private int sum = 0;
+  /** @hidden */
+  private long bytes = 0;
+
+  /** @hidden */
+  private final LongCounterMap receivedBytes = new LongCounterMap();
+  /** @hidden */
+  private final LongCounterMap sentBytes = new LongCounterMap();
+  /** @hidden */
+  private long[] layerBytes = new long[0];
+  /** @hidden */
+  private long[] windowBytes = new long[0];
+  /** @hidden */
+  private final LongCounterMap linkBytes = new LongCounterMap();
+  private long totalBytes = 0;
+  private long totalMessages = 0;
 
   @SuppressWarnings("unchecked")
   public MessageCounterTransport(String prefix) throws ClassNotFoundException {
@@ -34,6 +64,7 @@ public class MessageCounterTransport  implements Transport {
     } else {
       msgClass = null;
     }
+    window = Configuration.getLong(prefix + "." + PAR_WINDOW, 0);
   }
 
   public Object clone() {
@@ -41,10 +72,12 @@ public class MessageCounterTransport  implements Transport {
   }
   
   /**
-   * Resets the counter.
+   * Resets the counters of the current interval, i.e. the number of messages and bytes
+   * since the last reset. The totals are kept.
    */
   public void resetCounters() {
     sum = 0;
+    bytes = 0;
     messageCounter.clear();
   }
   
@@ -61,7 +94,98 @@ public class MessageCounterTransport  implements Transport {
    * @return nodeID, received messages mapping
    */
   public Map<Long,Integer> numberOfIncommingMessages() {
-    return messageCounter;
+    Map<Long,Integer> counts = new TreeMap<Long,Integer>();
+    for (long id : messageCounter.keys()) {
+      counts.put(id, (int) messageCounter.get(id));
+    }
+    return counts;
+  }
+
+  /**
+   * Returns the number of model bytes received since the last reset.
+   * @return bytes of the current interval
+   */
+  public long numberOfIncommingBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the number of model bytes of the whole simulation.
+   * @return total bytes
+   */
+  public long getTotalBytes() {
+    return totalBytes;
+  }
+
+  /**
+   * Returns the number of messages of the whole simulation.
+   * @return total messages
+   */
+  public long getTotalMessages() {
+    return totalMessages;
+  }
+
+  /**
+   * Returns the model bytes received by a node.
+   * @param id id of the node
+   * @return received bytes
+   */
+  public long getReceivedBytes(long id) {
+    return receivedBytes.get(id);
+  }
+
+  /**
+   * Returns the model bytes sent by a node.
+   * @param id id of the node
+   * @return sent bytes
+   */
+  public long getSentBytes(long id) {
+    return sentBytes.get(id);
+  }
+
+  /**
+   * Returns the model bytes sent from one node to another.
+   * @param from id of the sender
+   * @param to id of the receiver
+   * @return bytes of the link
+   */
+  public long getLinkBytes(long from, long to) {
+    return linkBytes.get(LongCounterMap.linkKey(from, to));
+  }
+
+  /**
+   * Returns the model bytes sent upwards by the nodes of the given ETree layer.
+   * @param layer layer of the sender
+   * @return bytes of the layer
+   */
+  public long getLayerBytes(int layer) {
+    return layer < layerBytes.length ? layerBytes[layer] : 0;
+  }
+
+  /**
+   * Returns the number of ETree layers that sent models upwards.
+   * @return number of layers
+   */
+  public int getLayers() {
+    return layerBytes.length;
+  }
+
+  /**
+   * Returns the model bytes sent in the given time window, i.e. between
+   * index * window and (index + 1) * window.
+   * @param index index of the window
+   * @return bytes of the window
+   */
+  public long getWindowBytes(int index) {
+    return index < windowBytes.length ? windowBytes[index] : 0;
+  }
+
+  /**
+   * Returns the number of time windows seen so far.
+   * @return number of windows, 0 if the windows are turned off
+   */
+  public int getWindows() {
+    return windowBytes.length;
   }
   
   /**
@@ -76,19 +200,43 @@ public class MessageCounterTransport  implements Transport {
   public void send(Node src, Node dest, Object msg, int pid) {
     // increment counters
     if (msgClass == null || msgClass.isInstance(msg)) {
-      Integer c = messageCounter.get(dest.getID());
-      if (c == null) {
-        messageCounter.put(dest.getID(), 1);
-      } else {
-        messageCounter.put(dest.getID(), c + 1);
-      }
+      messageCounter.add(dest.getID(), 1);
       sum ++;
+      totalMessages ++;
+      if (msg instanceof ModelMessage) {
+        countBytes(src.getID(), dest.getID(), msg);
+      }
     }
     
     Transport t = (Transport) src.getProtocol(transport);
     t.send(src, dest, msg, pid);
   }
 
+  private void countBytes(long from, long to, Object msg) {
+    long size = ((ModelMessage) msg).getPayloadSize();
+    bytes += size;
+    totalBytes += size;
+
+    receivedBytes.add(to, size);
+    sentBytes.add(from, size);
+    linkBytes.add(LongCounterMap.linkKey(from, to), size);
+
+    if (msg instanceof MessageUp) {
+      int layer = ((MessageUp) msg).getLayer();
+      if (layer >= layerBytes.length) {
+        layerBytes = Arrays.copyOf(layerBytes, layer + 1);
+      }
+      layerBytes[layer] += size;
+    }
+    if (window > 0) {
+      int index = (int) (CommonState.getTime() / window);
+      if (index >= windowBytes.length) {
+        windowBytes = Arrays.copyOf(windowBytes, Math.max(index + 1, windowBytes.length * 2));
+      }
+      windowBytes[index] += size;
+    }
+  }
+
   public long getLatency(Node src, Node dest) {
     Transport t = (Transport) src.getProtocol(transport);
     return t.getLatency(src, dest);
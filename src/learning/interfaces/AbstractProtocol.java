@@ -6,7 +6,7 @@ import learning.controls.ChurnControl;
 import learning.messages.ActiveThreadMessage;
 import learning.messages.ModelMessage;
 import learning.messages.OnlineSessionFollowerActiveThreadMessage;
-import learning.topology.TopoUtil;
+import learning.topology.DelayMatrix;
 import peersim.config.Configuration;
 import peersim.config.FastConfig;
 import peersim.core.CommonState;
@@ -71,7 +71,7 @@ public abstract class AbstractProtocol implements EDProtocol, Churnable, Learnin
   /** @hidden */
   protected String prefix;
 
-  protected int[][] minDelayMatrix;
+  protected DelayMatrix minDelayMatrix;
 
   protected double r;
   
@@ -98,7 +98,7 @@ public abstract class AbstractProtocol implements EDProtocol, Churnable, Learnin
     }
   }
 
-  public void setMinDelayMatrix(int[][] minDelayMatrix) {
+  public void setMinDelayMatrix(DelayMatrix minDelayMatrix) {
     this.minDelayMatrix = minDelayMatrix;
   }
 
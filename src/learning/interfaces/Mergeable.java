@@ -17,4 +17,11 @@ public interface Mergeable<T extends Model> {
   public T merge(final T model);
 
   public T aggregateDefault(ModelHolder models);
+
+  /**
+   * Returns an empty aggregator whose aggregate equals aggregateDefault of the models added to it,
+   * or null if the models can be aggregated from a holder only.
+   * @return new aggregator
+   */
+  public ModelAggregator<T> getAggregator();
 }
@@ -0,0 +1,38 @@
+package learning.interfaces;
+
+/**
+ * Running aggregate of models that arrive one at a time, see {@link Mergeable#getAggregator()}.
+ * A model is folded into the aggregate when it is added and it is not kept,
+ * so the aggregator needs memory for one model only.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ *
+ * @param <T> the type of the aggregated models
+ */
+public interface ModelAggregator<T extends Model> {
+
+  /**
+   * Folds the specified model into the aggregate.
+   * @param model model to add, it is not modified
+   */
+  public void add(final T model);
+
+  /**
+   * Returns the number of models added since the last clear.
+   * @return the number of added models
+   */
+  public int size();
+
+  /**
+   * Returns the aggregate of the added models, it equals Mergeable.aggregateDefault
+   * applied to a holder of the same models in the same order.
+   * @return new model
+   */
+  public T getAggregate();
+
+  /**
+   * Forgets the added models.
+   */
+  public void clear();
+}
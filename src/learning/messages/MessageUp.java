@@ -9,12 +9,38 @@ import peersim.core.Node;
  */
 public class MessageUp extends ModelMessage {
     private int layer;
+    private int epoch;
+    private int round;
     public MessageUp(Node src, int layer, ModelHolder models) {
+        this(src, layer, models, 0);
+    }
+
+    public MessageUp(Node src, int layer, ModelHolder models, int epoch) {
+        this(src, layer, models, epoch, 0);
+    }
+
+    public MessageUp(Node src, int layer, ModelHolder models, int epoch, int round) {
         super(src, models);
         this.layer = layer;
+        this.epoch = epoch;
+        this.round = round;
     }
 
     public int getLayer() {
         return layer;
     }
+
+    /**
+     * @return ETree epoch the message was sent in
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return round of the receiving aggregator the model was sent for, in pipelined ETree epochs
+     */
+    public int getRound() {
+        return round;
+    }
 }
@@ -4,6 +4,10 @@ import learning.interfaces.Model;
 import learning.interfaces.ModelHolder;
 import peersim.core.Node;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
 /**
  * This class represents a message which contains the models in the gossip learning framework.
  * Basically this is the information which is sent through the network.
@@ -22,6 +26,8 @@ public class ModelMessage implements ModelHolder, Message {
   private Node src;
   /** @hidden */
   private final ModelHolder models;
+  /** @hidden */
+  private transient int payloadSize = -1;
 
   /**
    * Constructor which creates a deep copy of the models.
@@ -55,6 +61,28 @@ public class ModelMessage implements ModelHolder, Message {
     this.src = src;
   }
 
+  /**
+   * It returns the number of bytes of the serialized models carried by this message.
+   * The size is computed at the first call and cached until the models change or
+   * a model is handed out by getModel, since it can be changed in place.
+   *
+   * @return Serialized size of the underlying ModelHolder in bytes.
+   */
+  public int getPayloadSize() {
+    if (payloadSize < 0) {
+      try {
+        CountingOutputStream counter = new CountingOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(counter);
+        out.writeObject(models);
+        out.close();
+        payloadSize = counter.count;
+      } catch (IOException e) {
+        throw new RuntimeException("Exception occured in payload size computation of " + getClass().getCanonicalName() + ": " + e);
+      }
+    }
+    return payloadSize;
+  }
+
   /**
    * It creates a clone of the original message. The models will be deep copied!
    * 
@@ -70,6 +98,7 @@ public class ModelMessage implements ModelHolder, Message {
    */
   @Override
   public void init(String prefix) {
+    payloadSize = -1;
     models.init(prefix);
   }
 
@@ -91,6 +120,7 @@ public class ModelMessage implements ModelHolder, Message {
    */
   @Override
   public Model getModel(int index) {
+    payloadSize = -1;
     return models.getModel(index);
   }
 
@@ -103,6 +133,7 @@ public class ModelMessage implements ModelHolder, Message {
    */
   @Override
   public void setModel(int index, Model model) {
+    payloadSize = -1;
     models.setModel(index, model);
   }
 
@@ -114,6 +145,7 @@ public class ModelMessage implements ModelHolder, Message {
    */
   @Override
   public boolean add(Model model) {
+    payloadSize = -1;
     return models.add(model);
   }
 
@@ -125,6 +157,7 @@ public class ModelMessage implements ModelHolder, Message {
    */
   @Override
   public Model remove(int index) {
+    payloadSize = -1;
     return models.remove(index);
   }
 
@@ -133,6 +166,24 @@ public class ModelMessage implements ModelHolder, Message {
    */
   @Override
   public void clear() {
+    payloadSize = -1;
     models.clear();
   }
+
+  /**
+   * Output stream that only counts the written bytes.
+   */
+  private static class CountingOutputStream extends OutputStream {
+    private int count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
 }
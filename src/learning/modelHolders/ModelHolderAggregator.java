@@ -0,0 +1,74 @@
+package learning.modelHolders;
+
+import learning.interfaces.Mergeable;
+import learning.interfaces.Model;
+import learning.interfaces.ModelAggregator;
+import learning.interfaces.ModelHolder;
+
+/**
+ * Aggregator for the models that have no running aggregate, see {@link Mergeable#getAggregator()}.
+ * It keeps copies of the added models in a holder and aggregates them with Mergeable.aggregateDefault
+ * of the given model at the end.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ *
+ * @param <T> the type of the aggregated models
+ */
+public class ModelHolderAggregator<T extends Model> implements ModelAggregator<T> {
+  private final ModelHolder models;
+  private final Mergeable<T> model;
+
+  /**
+   * @param models holder of the added models, it is cleared
+   * @param model model whose aggregateDefault aggregates the added models
+   */
+  public ModelHolderAggregator(ModelHolder models, Mergeable<T> model) {
+    this.models = models;
+    this.model = model;
+    models.clear();
+  }
+
+  /**
+   * Stores a copy of the model, since the sender may still share the added one.
+   */
+  @Override
+  public void add(T model) {
+    models.add((Model) model.clone());
+  }
+
+  @Override
+  public int size() {
+    return models.size();
+  }
+
+  @Override
+  public T getAggregate() {
+    return model.aggregateDefault(models);
+  }
+
+  @Override
+  public void clear() {
+    models.clear();
+  }
+
+  /**
+   * Returns the running aggregator of the model, or one that stores the models in the given holder
+   * if the model has none. The protocols hold their models as Model, so the aggregator takes
+   * any model, the added ones must have the type of the given model.
+   *
+   * @param models holder of the added models
+   * @param model mergeable model that aggregates
+   * @return new aggregator
+   */
+  @SuppressWarnings("unchecked")
+  public static ModelAggregator<Model> getAggregator(ModelHolder models, Model model) {
+    if (!(model instanceof Mergeable)) {
+      throw new RuntimeException("Exception occured in ModelHolderAggregator: " + model.getClass().getName()
+          + " is not mergeable");
+    }
+    Mergeable<Model> mergeable = (Mergeable<Model>) model;
+    ModelAggregator<Model> aggregator = mergeable.getAggregator();
+    return aggregator != null ? aggregator : new ModelHolderAggregator<Model>(models, mergeable);
+  }
+}
@@ -1,5 +1,6 @@
 package learning.models;
 
+import learning.interfaces.ModelAggregator;
 import learning.interfaces.ModelHolder;
 import learning.utils.Utils;
 import peersim.config.Configuration;
@@ -76,26 +77,57 @@ public class MergeableLogisticRegression extends LogisticRegression implements M
      */
     @Override
     public MergeableLogisticRegression aggregateDefault(ModelHolder models) {
-        double agg_age = 0.0;
-        double agg_lambda = Double.MAX_VALUE;
-        // aggregate age
+        ModelAggregator<MergeableLogisticRegression> aggregator = getAggregator();
         for (int i = 0; i < models.size(); i++) {
-            agg_age = Math.max(agg_age, ((MergeableLogisticRegression) models.getModel(i)).age);
-            agg_lambda = Math.min(agg_lambda, ((MergeableLogisticRegression) models.getModel(i)).lambda);
+            aggregator.add((MergeableLogisticRegression) models.getModel(i));
         }
+        return aggregator.getAggregate();
+    }
 
-        SparseVector temp_w = new SparseVector();
-        double temp_b = 0.0;
+    /**
+     * Returns an aggregator that averages the hyperplanes and the biases of the added models,
+     * the aggregate has the largest age and the smallest learning parameter of them.
+     * @return new aggregator
+     */
+    @Override
+    public ModelAggregator<MergeableLogisticRegression> getAggregator() {
+        return new ModelAggregator<MergeableLogisticRegression>() {
+            private SparseVector temp_w = new SparseVector();
+            private double temp_b = 0.0;
+            private double agg_age = 0.0;
+            private double agg_lambda = Double.MAX_VALUE;
+            private int size;
+
+            @Override
+            public void add(MergeableLogisticRegression model) {
+                agg_age = Math.max(agg_age, model.age);
+                agg_lambda = Math.min(agg_lambda, model.lambda);
+                temp_w.add(model.w);
+                temp_b += model.bias;
+                size++;
+            }
 
-        for (int i = 0; i < models.size(); i++) {
-            MergeableLogisticRegression model = (MergeableLogisticRegression) models.getModel(i);
-            temp_w.add(model.w);
-            temp_b += model.bias;
-        }
-        temp_w.mul(1.0 / models.size());
-        temp_b /= models.size();
+            @Override
+            public int size() {
+                return size;
+            }
 
-        return new MergeableLogisticRegression(temp_w, agg_age, agg_lambda, r, numberOfClasses, temp_b);
+            @Override
+            public MergeableLogisticRegression getAggregate() {
+                SparseVector agg_w = new SparseVector(temp_w);
+                agg_w.mul(1.0 / size);
+                return new MergeableLogisticRegression(agg_w, agg_age, agg_lambda, r, numberOfClasses, temp_b / size);
+            }
+
+            @Override
+            public void clear() {
+                temp_w = new SparseVector();
+                temp_b = 0.0;
+                agg_age = 0.0;
+                agg_lambda = Double.MAX_VALUE;
+                size = 0;
+            }
+        };
     }
 
 
@@ -1,5 +1,6 @@
 package learning.models;
 
+import learning.interfaces.ModelAggregator;
 import learning.interfaces.ModelHolder;
 import peersim.config.Configuration;
 import learning.interfaces.Mergeable;
@@ -63,4 +64,9 @@ public class MergeablePegasos extends P2Pegasos implements Mergeable<MergeablePe
         return null;
     }
 
+    @Override
+    public ModelAggregator<MergeablePegasos> getAggregator() {
+        return null;
+    }
+
 }
@@ -1,6 +1,7 @@
 package learning.models;
 
 import learning.interfaces.Mergeable;
+import learning.interfaces.ModelAggregator;
 import learning.interfaces.ModelHolder;
 import learning.interfaces.ProbabilityModel;
 import learning.utils.Matrix;
@@ -141,25 +142,51 @@ public class SoftmaxRegression extends ProbabilityModel implements Mergeable<Sof
 
     @Override
     public SoftmaxRegression aggregateDefault(ModelHolder models) {
-        double agg_lambda = Double.MAX_VALUE;
-
-        // aggregate age
+        ModelAggregator<SoftmaxRegression> aggregator = getAggregator();
         for (int i = 0; i < models.size(); i++) {
-            agg_lambda = Math.min(agg_lambda, ((SoftmaxRegression) models.getModel(i)).lambda);
+            aggregator.add((SoftmaxRegression) models.getModel(i));
         }
+        return aggregator.getAggregate();
+    }
 
-        Matrix temp_w = new Matrix(numberOfFeatures, numberOfClasses);
-        Matrix temp_b = new Matrix(new double[numberOfClasses], false);
+    /**
+     * Returns an aggregator that averages the weights and the biases of the added models,
+     * the aggregate has the learning parameter of this model.
+     *
+     * @return new aggregator
+     */
+    @Override
+    public ModelAggregator<SoftmaxRegression> getAggregator() {
+        return new ModelAggregator<SoftmaxRegression>() {
+            private Matrix sum_w = new Matrix(numberOfFeatures, numberOfClasses);
+            private Matrix sum_b = new Matrix(new double[numberOfClasses], false);
+            private int size;
+
+            @Override
+            public void add(SoftmaxRegression model) {
+                sum_w.addInPlace(model.w);
+                sum_b.addInPlace(model.bias);
+                size++;
+            }
 
-        for (int i = 0; i < models.size(); i++) {
-            SoftmaxRegression model = (SoftmaxRegression) models.getModel(i);
-            temp_w = temp_w.add(model.w);
-            temp_b = temp_b.add(model.bias);
-        }
-        temp_w = temp_w.mul(1.0 / models.size());
-        temp_b = temp_b.mul(1.0 / models.size());
+            @Override
+            public int size() {
+                return size;
+            }
 
-        return new SoftmaxRegression(temp_w, lambda, numberOfFeatures, numberOfClasses, temp_b);
+            @Override
+            public SoftmaxRegression getAggregate() {
+                return new SoftmaxRegression(new Matrix(sum_w).mul(1.0 / size), lambda, numberOfFeatures, numberOfClasses,
+                        new Matrix(sum_b).mul(1.0 / size));
+            }
+
+            @Override
+            public void clear() {
+                sum_w = new Matrix(numberOfFeatures, numberOfClasses);
+                sum_b = new Matrix(new double[numberOfClasses], false);
+                size = 0;
+            }
+        };
     }
 
     @Override
@@ -1,5 +1,6 @@
 package learning.models.multiClassLearners;
 
+import learning.interfaces.ModelAggregator;
 import learning.interfaces.ModelHolder;
 import peersim.config.Configuration;
 import learning.interfaces.Mergeable;
@@ -74,4 +75,9 @@ public class MergeableMultiLogReg extends MultiLogReg implements Mergeable<Merge
         return null;
     }
 
+    @Override
+    public ModelAggregator<MergeableMultiLogReg> getAggregator() {
+        return null;
+    }
+
 }
@@ -2,6 +2,7 @@ package learning.models.multiClassLearners;
 
 import learning.interfaces.Mergeable;
 import learning.interfaces.Model;
+import learning.interfaces.ModelAggregator;
 import learning.interfaces.ModelHolder;
 import learning.interfaces.ProbabilityModel;
 import learning.modelHolders.BoundedModelHolder;
@@ -130,4 +131,9 @@ public class OneVsAllMetaClassifier extends ProbabilityModel implements Mergeabl
         return null;
     }
 
+    @Override
+    public ModelAggregator<OneVsAllMetaClassifier> getAggregator() {
+        return null;
+    }
+
 }
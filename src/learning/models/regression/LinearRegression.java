@@ -2,6 +2,7 @@ package learning.models.regression;
 
 import learning.interfaces.Mergeable;
 import learning.interfaces.Model;
+import learning.interfaces.ModelAggregator;
 import learning.interfaces.ModelHolder;
 import learning.interfaces.SimilarityComputable;
 import learning.utils.SparseVector;
@@ -101,6 +102,11 @@ public class LinearRegression implements Model, Mergeable<LinearRegression>, Sim
         return null;
     }
 
+    @Override
+    public ModelAggregator<LinearRegression> getAggregator() {
+        return null;
+    }
+
     @Override
   public int getNumberOfClasses() {
     return numberOfClasses;
@@ -3,68 +3,155 @@ package learning.node;
 import peersim.config.Configuration;
 import peersim.core.GeneralNode;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
+ * Node of the ETree. The parents (one per layer the node is active in) and the children
+ * (per layer the node aggregates in) are kept in primitive int arrays that grow when needed.
+ *
  * @author sshpark
  * @date 14/2/2020
  */
 public class ETreeNode extends GeneralNode {
-    private ArrayList<Integer> parentNodeID;
-    private ArrayList<Integer>[] childNodeIDList;
-    private boolean[] layersStatus;
+    private int[] parentNodeID;
+    private int parentCount;
+    private int[][] childNodeID;
+    private int[] childCount;
 
     @Override
     public Object clone() {
         ETreeNode result;
         result=(ETreeNode) super.clone();
-        int layers = Configuration.getInt("LAYERS");
-        result.parentNodeID = new ArrayList<>(layers);
-        result.childNodeIDList = new ArrayList[layers];
-        result.layersStatus = new boolean[layers];
-        for (int i = 0; i < layers; i++)
-            result.childNodeIDList[i] = new ArrayList<>();
+        result.initLayers(Configuration.getInt("LAYERS"));
         return result;
     }
 
     public ETreeNode(String prefix) {
         super(prefix);
-        int layers = Configuration.getInt("LAYERS");
-        parentNodeID = new ArrayList<>(layers);
-        childNodeIDList = new ArrayList[layers];
-        layersStatus = new boolean[layers];
-        for (int i = 0; i < layers; i++)
-            childNodeIDList[i] = new ArrayList<>();
+        initLayers(Configuration.getInt("LAYERS"));
+    }
 
+    private void initLayers(int layers) {
+        parentNodeID = new int[layers];
+        parentCount = 0;
+        childNodeID = new int[layers][0];
+        childCount = new int[layers];
     }
 
     public void addParentNode(int parentID) {
-        parentNodeID.add(parentID);
+        setParentNode(parentCount, parentID);
+    }
+
+    /**
+     * Sets the parent of the node in the given layer, a layer right above the known ones is appended.
+     *
+     * @param layer layer of the node
+     * @param parentID id of the aggregator of its group
+     */
+    public void setParentNode(int layer, int parentID) {
+        if (layer == parentCount) {
+            if (parentCount == parentNodeID.length) {
+                parentNodeID = Arrays.copyOf(parentNodeID, parentCount + 1);
+            }
+            parentCount++;
+        } else if (layer > parentCount) {
+            throw new IndexOutOfBoundsException("Layer: " + layer + ", Parents: " + parentCount);
+        }
+        parentNodeID[layer] = parentID;
     }
 
-    public Integer getParentNode(int layer) {
-        if (layer == parentNodeID.size()) layer--;
-        return parentNodeID.get(layer);
+    /**
+     * Forgets the parents of the node above the given number of layers.
+     *
+     * @param layers number of layers to keep
+     */
+    public void trimParentNodes(int layers) {
+        parentCount = Math.min(parentCount, layers);
     }
 
-    public ArrayList<Integer> getChildNodeList(int layer) {
-        return childNodeIDList[layer];
+    public int getParentNode(int layer) {
+        if (layer == parentCount) layer--;
+        if (layer < 0 || layer >= parentCount) {
+            throw new IndexOutOfBoundsException("Layer: " + layer + ", Parents: " + parentCount);
+        }
+        return parentNodeID[layer];
+    }
+
+    /**
+     * @param layer layer the node aggregates in
+     * @return number of children in the layer
+     */
+    public int getChildCount(int layer) {
+        return childCount[layer];
+    }
+
+    /**
+     * @param layer layer the node aggregates in
+     * @param index position of the child, below {@link #getChildCount(int)}
+     * @return id of the child
+     */
+    public int getChildNode(int layer, int index) {
+        return childNodeID[layer][index];
+    }
+
+    /**
+     * @param layer layer the node aggregates in
+     * @return copy of the ids of the children
+     */
+    public int[] getChildNodes(int layer) {
+        return Arrays.copyOf(childNodeID[layer], childCount[layer]);
     }
 
     public void addChildNode(int layer, int nodeid) {
-        if (layer >= childNodeIDList.length) return;
-        childNodeIDList[layer].add(nodeid);
+        if (layer >= childNodeID.length) return;
+        if (childCount[layer] == childNodeID[layer].length) {
+            childNodeID[layer] = Arrays.copyOf(childNodeID[layer], Math.max(4, childCount[layer] * 2));
+        }
+        childNodeID[layer][childCount[layer]++] = nodeid;
+    }
+
+    /**
+     * Removes a child, the other children keep their order.
+     *
+     * @param layer layer the node aggregates in
+     * @param nodeid id of the child
+     * @return true if the node was a child
+     */
+    public boolean removeChildNode(int layer, int nodeid) {
+        int[] children = childNodeID[layer];
+        for (int i = 0; i < childCount[layer]; i++) {
+            if (children[i] == nodeid) {
+                System.arraycopy(children, i + 1, children, i, childCount[layer] - i - 1);
+                childCount[layer]--;
+                return true;
+            }
+        }
+        return false;
     }
 
-    public void setLayersStatus(int layer, boolean flag) {
-        layersStatus[layer] = flag;
+    /**
+     * Puts a node in the place of a child.
+     *
+     * @param layer layer the node aggregates in
+     * @param oldId id of the child
+     * @param newId id of the node that takes its place
+     */
+    public void replaceChildNode(int layer, int oldId, int newId) {
+        int[] children = childNodeID[layer];
+        for (int i = 0; i < childCount[layer]; i++) {
+            if (children[i] == oldId) {
+                children[i] = newId;
+                return;
+            }
+        }
     }
 
-    public boolean getLayersStatus(int layer) {
-        return layersStatus[layer];
+    public void setChildNodes(int layer, int[] nodeids) {
+        childNodeID[layer] = Arrays.copyOf(nodeids, nodeids.length);
+        childCount[layer] = nodeids.length;
     }
 
-    public void setChildNodeIDList(int layer, ArrayList<Integer> nodelist) {
-        childNodeIDList[layer] = nodelist;
+    public void clearChildNodes(int layer) {
+        childCount[layer] = 0;
     }
 }
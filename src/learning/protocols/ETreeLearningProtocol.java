@@ -4,8 +4,12 @@ import learning.interfaces.*;
 import learning.main.Main;
 import learning.messages.*;
 import learning.modelHolders.BoundedModelHolder;
+import learning.modelHolders.ModelHolderAggregator;
 import learning.models.LogisticRegression;
 import learning.node.ETreeNode;
+import learning.topology.DelayMatrix;
+import learning.topology.TopoUtil;
+import learning.transport.MinDelayTransport;
 import learning.utils.SparseVector;
 import learning.utils.Utils;
 import peersim.config.Configuration;
@@ -15,8 +19,8 @@ import peersim.core.Node;
 import peersim.edsim.EDSimulator;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * @author sshpark
@@ -29,6 +33,19 @@ public class ETreeLearningProtocol extends AbstractProtocol {
     private final static String PAR_RATIOS = "ratios";
     private static final String PAR_RECVPERCENT = "recvPercent";
 
+    /**
+     * Pipelined epochs, false by default. Every aggregator works on its own rounds: it aggregates as soon as
+     * its selected children sent their models, sends its model up every ratio aggregations and sends the
+     * aggregate down to its subtree, whose workers start their next round when the model reaches them.
+     * A model coming down from a layer above replaces the rounds in progress below it.
+     */
+    private static final String PAR_PIPELINE = "pipeline";
+    /**
+     * Pipelined epochs: number of aggregations an aggregator may do after it sent its model up,
+     * before it waits for the model of the layer above, 0 by default.
+     */
+    private static final String PAR_STALENESS = "staleness";
+
     /**
      * @hidden
      */
@@ -36,22 +53,63 @@ public class ETreeLearningProtocol extends AbstractProtocol {
     private final String modelName;
     private final int layers;
     private final double recvPercent;
+    private final boolean pipeline;
+    private final int staleness;
 
     /**
      * useful variable
      */
     private Model[] layersWorkerModel;
+    /* the worker model of the layer is also referenced by other nodes or messages, it is copied before an update */
+    private boolean[] layersModelShared;
     private ModelHolder[] layersReceivedModels;
-    private ArrayList<Integer>[] layersSelectedID;
+    /* running aggregate of the models received in the current round of every layer,
+       it keeps the models in layersReceivedModels only if the model has no running aggregate */
+    private ModelAggregator<Model>[] layersAggregator;
+    /* the children selected in a layer are layersSelectedID[layer][layersSelectedFrom[layer]..layersSelectedTo[layer]) */
+    private int[][] layersSelectedID;
+    private int[] layersSelectedFrom;
+    private int[] layersSelectedTo;
+    /* the same selection by node id, for the messages that arrive */
+    private BitSet[] layersSelected;
     private int[] aggregateRatio;
     private int[] aggregateCount;
+    /* the epoch this node last trained in */
+    private int startedEpoch = -1;
+    /* pipelined epochs: current round of every layer this node aggregates in */
+    private int[] localRound;
+    /* pipelined epochs: aggregations of every layer since the last model from the layer above */
+    private int[] aggregationsSinceDown;
+    /* pipelined epochs: children whose model arrived in the current round of every layer */
+    private BitSet[] layersReceived;
+    /* pipelined epochs: round of the aggregator this node last trained in, reset when the tree changes */
+    private int startedRound = -1;
+    /* the round of every layer this node last aggregated in */
+    private int[] aggregatedRound;
     private static ArrayList<ArrayList<Integer>> layersNodeID;
+    /* current round of every layer, it grows when the aggregations of the layer are reset */
+    private static int[] layersRound;
+    /* number of nodes of every layer that aggregated in its current round */
+    private static int[] layersAggregated;
+    /* number of the current epoch, it also grows when the epoch is restarted */
+    private static int epoch;
+    /* first epoch after the last restart, the models sent before it are dropped */
+    private static int restartedEpoch;
+    /* time of the last aggregation or epoch start */
+    private static long lastProgressTime;
 
     public ETreeLearningProtocol(String prefix) {
         modelHolderName = Configuration.getString(prefix + "." + PAR_MODELHOLDERNAME);
         modelName = Configuration.getString(prefix + "." + PAR_MODELNAME);
         layers = Configuration.getInt(prefix + "." + PAR_LAYERS);
         recvPercent = Configuration.getDouble(prefix + "." + PAR_RECVPERCENT);
+        // a lost model would stall the round, the aggregation waits for every selected one
+        if (MinDelayTransport.getDrop(prefix) > 0) {
+            throw new RuntimeException("Exception occured in ETreeLearningProtocol: messages must not be dropped, "
+                    + "the aggregation waits for the models of all selected nodes");
+        }
+        pipeline = Configuration.getBoolean(prefix + "." + PAR_PIPELINE, false);
+        staleness = Configuration.getInt(prefix + "." + PAR_STALENESS, 0);
         init(prefix);
     }
 
@@ -63,11 +121,14 @@ public class ETreeLearningProtocol extends AbstractProtocol {
      * @param modelName
      * @param layers
      */
-    private ETreeLearningProtocol(String prefix, String modelHolderName, String modelName, int layers, double recvPercent) {
+    private ETreeLearningProtocol(String prefix, String modelHolderName, String modelName, int layers, double recvPercent,
+                                  boolean pipeline, int staleness) {
         this.modelHolderName = modelHolderName;
         this.modelName = modelName;
         this.layers = layers;
         this.recvPercent = recvPercent;
+        this.pipeline = pipeline;
+        this.staleness = staleness;
         init(prefix);
     }
 
@@ -81,6 +142,10 @@ public class ETreeLearningProtocol extends AbstractProtocol {
                 layersReceivedModels[i].init(prefix);
             }
 
+            @SuppressWarnings("unchecked")
+            ModelAggregator<Model>[] aggregators = (ModelAggregator<Model>[]) new ModelAggregator<?>[layers];
+            layersAggregator = aggregators;
+
             // init worker model
             layersWorkerModel = new Model[layers];
             for (int i = 0; i < layers; i++) {
@@ -88,6 +153,10 @@ public class ETreeLearningProtocol extends AbstractProtocol {
                 layersWorkerModel[i].init(prefix);
             }
 
+            layersModelShared = new boolean[layers];
+            aggregatedRound = new int[layers];
+            Arrays.fill(aggregatedRound, -1);
+
             // init ratios
             String[] agg_ratios = Configuration.getString(prefix + "." + PAR_RATIOS).split(",");
             if (agg_ratios.length != layers)
@@ -100,8 +169,16 @@ public class ETreeLearningProtocol extends AbstractProtocol {
             aggregateCount = new int[layers];
 
             // init layersReceivedID
-            layersSelectedID = new ArrayList[layers];
-            for (int i = 0; i < layers; i++) layersSelectedID[i] = new ArrayList<>();
+            layersSelectedID = new int[layers][0];
+            layersSelectedFrom = new int[layers];
+            layersSelectedTo = new int[layers];
+            layersSelected = new BitSet[layers];
+            for (int i = 0; i < layers; i++) layersSelected[i] = new BitSet();
+
+            localRound = new int[layers];
+            aggregationsSinceDown = new int[layers];
+            layersReceived = new BitSet[layers];
+            for (int i = 0; i < layers; i++) layersReceived[i] = new BitSet();
 
             cycle = 1;
         } catch (Exception e) {
@@ -117,78 +194,140 @@ public class ETreeLearningProtocol extends AbstractProtocol {
         if (messageObj instanceof ActiveThreadMessage) {
             int currentLayer = 0;
             ETreeNode node = (ETreeNode) currentNode;
-            // update model
-            Model wkmodel = layersWorkerModel[currentLayer];
-            wkmodel = workerUpdate(wkmodel);
+            int round = 0;
+            if (pipeline) {
+                // a worker trains once in every round of its aggregator, a late start finds the aggregator
+                // waiting for the model of the layer above, the round that model starts comes with its own start
+                ETreeLearningProtocol parent_pro = (ETreeLearningProtocol) Network.get(node.getParentNode(currentLayer))
+                        .getProtocol(currentProtocolID);
+                round = parent_pro.localRound[currentLayer + 1];
+                if (startedRound == round || parent_pro.hasAggregated(currentLayer + 1)) return;
+                startedRound = round;
+            } else {
+                // a restarted epoch may find the start of the previous one still queued
+                if (startedEpoch == epoch) return;
+                startedEpoch = epoch;
+            }
+            // update model, the model of the aggregator is copied first
+            if (layersModelShared[currentLayer]) {
+                layersWorkerModel[currentLayer] = (Model) layersWorkerModel[currentLayer].clone();
+            }
+            Model wkmodel = workerUpdate(layersWorkerModel[currentLayer]);
 
-            // send to next layer
+            // send to next layer, the message shares the model until the next update
             ModelHolder latestModelHolder = new BoundedModelHolder(1);
-            latestModelHolder.add((Model) wkmodel.clone());
-            sendTo(new MessageUp(node, currentLayer, latestModelHolder), node.getParentNode(currentLayer));
+            latestModelHolder.add(wkmodel);
+            layersModelShared[currentLayer] = true;
+            sendTo(new MessageUp(node, currentLayer, latestModelHolder, epoch, round), node.getParentNode(currentLayer));
         } else if (messageObj instanceof MessageUp) { // receive message from child node
 //            System.out.println("Time: " + CommonState.getTime() + ", current node: " + currentNode.getIndex() + ", recv from: "
 //                    + ((MessageUp) messageObj).getSource().getIndex() +
 //                    ", " + ((MessageUp) messageObj).getLayer());
 
+            // the message was sent before the epoch was restarted, e.g. to an aggregator that was replaced;
+            // late models of a finished epoch are folded into the current one like before
+            if (((MessageUp) messageObj).getEpoch() < restartedEpoch) return;
             int layer = ((MessageUp) messageObj).getLayer() + 1;  // current layer = source layer+1
 //            System.out.println("curren layer: " + layer);
             // If node is not selected in this round, than return
-            if (!isSelected(layer, ((MessageUp) messageObj).getSource().getIndex())) return;
+            int source = ((MessageUp) messageObj).getSource().getIndex();
+            if (!isSelected(layer, source)) return;
+            if (pipeline) {
+                // the model belongs to an earlier round, or the child already sent one in this round,
+                // or the subtree waits for the model of the layer above and the round is started again by it
+                if (((MessageUp) messageObj).getRound() != localRound[layer] || layersReceived[layer].get(source)
+                        || hasAggregated(layer)) return;
+                layersReceived[layer].set(source);
+            }
 
-            // add model to current layer's received model
-            layersReceivedModels[layer].add((Model) ((MessageUp) messageObj).getModel(0).clone());
+            // fold the model into the running aggregate of the current layer
+            if (layersAggregator[layer] == null) {
+                layersAggregator[layer] = ModelHolderAggregator.getAggregator(layersReceivedModels[layer],
+                        layersWorkerModel[layer]);
+            }
+            layersAggregator[layer].add(((MessageUp) messageObj).getModel(0));
 
             // current node's child node size
-            int numOfChildNode = Math.max((int) (((ETreeNode) currentNode).getChildNodeList(layer).size() * recvPercent), 1);
+            int numOfChildNode = Math.max((int) (((ETreeNode) currentNode).getChildCount(layer) * recvPercent), 1);
             // judge whether to aggregate
-            if (layersReceivedModels[layer].size() == numOfChildNode) {
-                // current layer has aggregated
-                ((ETreeNode) currentNode).setLayersStatus(layer, true);
-
-                // add worker model where from current layer
-                Model workerModel = layersWorkerModel[layer];
-
-                // aggregate receive model
-                workerModel = ((Mergeable) workerModel).aggregateDefault(layersReceivedModels[layer]);
-                // broadcast to its child node
-                bfs((ETreeNode) currentNode, layer, workerModel);
-
-                // after aggregate, we should update some information
-                layersWorkerModel[layer] = workerModel;
-                aggregateCount[layer]++;
-                layersReceivedModels[layer].clear();
+            if (layersAggregator[layer].size() == numOfChildNode) {
+                if (pipeline) pipelinedAggregate(layer);
+                else aggregate(layer);
+            }
+        }
+    }
 
-                // whether to send nodes to the next layer
-                if (aggregateCount[layer] % aggregateRatio[layer] == 0) {
+    /**
+     * Aggregates a layer at the end of its round, sends the model up every ratio aggregations
+     * once the whole layer aggregated and starts the next epoch when the top layer of the epoch is done.
+     *
+     * @param layer
+     */
+    private void aggregate(int layer) {
+        // current layer has aggregated
+        if (aggregatedRound[layer] != layersRound[layer]) {
+            aggregatedRound[layer] = layersRound[layer];
+            layersAggregated[layer]++;
+        }
+        lastProgressTime = CommonState.getTime();
+
+        // aggregate receive model, without models the aggregator keeps its own
+        Model workerModel = layersAggregator[layer] == null ? layersWorkerModel[layer]
+                : layersAggregator[layer].getAggregate();
+        // broadcast to its child node
+        bfs((ETreeNode) currentNode, layer, workerModel);
+
+        // after aggregate, we should update some information
+        layersWorkerModel[layer] = workerModel;
+        layersModelShared[layer] = true;
+        aggregateCount[layer]++;
+        layersAggregator[layer] = null;
+
+        // whether to send nodes to the next layer
+        if (aggregateCount[layer] % aggregateRatio[layer] == 0) {
 //                    System.out.println(currentNode.getIndex() + " " + layer + " " + aggregateCount[layer]);
-                    if (layer != layers - 1) {
-                        // send to next layer
-                        if (canUpMessage(layer)) {
-                            // global max layer
-                            CommonState.setPhase(Math.max(CommonState.getPhase(), layer + 1));
-                            upMessageToNextLayer(layer);
-                        }
-                    } else {
-                        CommonState.setPhase(layers - 1);
-                        // output loss and accuracy
-                        computeLoss(workerModel);
-                    }
+            if (layer != layers - 1) {
+                // send to next layer
+                if (canUpMessage(layer)) {
+                    // global max layer
+                    CommonState.setPhase(Math.max(CommonState.getPhase(), layer + 1));
+                    upMessageToNextLayer(layer);
                 }
-                if (canStartNextEpoch()) {
-                    resetForNextEpoch();
+            } else {
+                CommonState.setPhase(layers - 1);
+                // output loss and accuracy
+                computeLoss(workerModel);
+            }
+        }
+        if (canStartNextEpoch()) {
+            resetForNextEpoch();
 //                    System.out.println("start next epoch time: " + CommonState.getTime());
-                    for (int i = 0; i < Network.size(); i++) {
-                        Node node = Network.get(i);
-                        // schedule starter alarm
-                        EDSimulator.add(0, ActiveThreadMessage.getInstance(), node, currentProtocolID);
-                    }
-                }
-            } // finished aggregated
+            for (int i = 0; i < Network.size(); i++) {
+                Node node = Network.get(i);
+                // schedule starter alarm
+                EDSimulator.add(0, ActiveThreadMessage.getInstance(), node, currentProtocolID);
+            }
         }
     }
 
     /**
-     * Send the model to all child nodes of root.
+     * Ends the current round of the node in the given layer with the models that arrived so far,
+     * e.g. when the models of some children were lost. Without any model the aggregator keeps its own.
+     *
+     * @param node the node of this protocol
+     * @param protocolID id of this protocol
+     * @param layer layer the node aggregates in
+     */
+    public void aggregateReceived(Node node, int protocolID, int layer) {
+        currentNode = node;
+        currentProtocolID = protocolID;
+        if (pipeline) pipelinedAggregate(layer);
+        else aggregate(layer);
+    }
+
+    /**
+     * Send the model to all child nodes of root, depth first.
+     * Every node shares the model, a worker copies it when it trains.
      * It should be noted that the simulation time is updated during the model release process.
      *
      * @param root
@@ -196,25 +335,92 @@ public class ETreeLearningProtocol extends AbstractProtocol {
      * @param model
      */
     private void bfs(ETreeNode root, int layer, Model model) {
-        Queue<ETreeNode> q = new LinkedList<>();
-        q.offer(root);
-        while (!q.isEmpty()) {
-            int cnt = q.size();
-            for (int i = 0; i < cnt; i++) {
-                ETreeNode top = q.poll();
-                for (Integer id : top.getChildNodeList(layer)) {
-                    ETreeNode temp = (ETreeNode) Network.get(id);
-                    // update node's model
-                    ETreeLearningProtocol temp_node_pro = (ETreeLearningProtocol) temp.getProtocol(currentProtocolID);
-                    temp_node_pro.setLayersWorkerModel(layer - 1, (Model) model.clone());
-                    q.offer(temp);
-                }
+        for (int i = 0; i < root.getChildCount(layer); i++) {
+            ETreeNode temp = (ETreeNode) Network.get(root.getChildNode(layer, i));
+            // update node's model
+            ETreeLearningProtocol temp_node_pro = (ETreeLearningProtocol) temp.getProtocol(currentProtocolID);
+            temp_node_pro.layersWorkerModel[layer - 1] = model;
+            temp_node_pro.layersModelShared[layer - 1] = true;
+            if (layer > 1) bfs(temp, layer - 1, model);
+        }
+    }
+
+    /**
+     * Aggregates a layer in pipelined mode, sends the model up every ratio aggregations and sends it down
+     * unless the aggregator has to wait for the model of the layer above.
+     *
+     * @param layer
+     */
+    private void pipelinedAggregate(int layer) {
+        ETreeNode node = (ETreeNode) currentNode;
+        lastProgressTime = CommonState.getTime();
+        Model workerModel = layersAggregator[layer] == null ? layersWorkerModel[layer]
+                : layersAggregator[layer].getAggregate();
+        layersWorkerModel[layer] = workerModel;
+        layersModelShared[layer] = true;
+        aggregateCount[layer]++;
+        startRound(node, layer);
+
+        if (layer == layers - 1) {
+            computeLoss(workerModel);
+        } else {
+            int parentId = node.getParentNode(layer);
+            ETreeLearningProtocol parent_pro = (ETreeLearningProtocol) Network.get(parentId).getProtocol(currentProtocolID);
+            if (aggregateCount[layer] % aggregateRatio[layer] == 0 && parent_pro.isSelected(layer + 1, node.getIndex())) {
+                ModelHolder latestModelHolder = new BoundedModelHolder(1);
+                latestModelHolder.add(workerModel);
+                sendTo(new MessageUp(node, layer, latestModelHolder, epoch, parent_pro.localRound[layer + 1]), parentId);
+            }
+            aggregationsSinceDown[layer]++;
+            // the subtree waits for the model of the layer above
+            if (aggregationsSinceDown[layer] >= aggregateRatio[layer] + staleness) return;
+        }
+        sendDown(node, layer, workerModel, 0);
+    }
+
+    /**
+     * Sends the model to all child nodes of root in pipelined mode. The rounds in progress below the root
+     * are dropped and the workers start their next round when the model reaches them.
+     * The model is installed at once, like in {@link #bfs}, only the workers wait for the delay of the path.
+     *
+     * @param root
+     * @param layer
+     * @param model
+     * @param delay delay of the path from the aggregator to the root
+     */
+    private void sendDown(ETreeNode root, int layer, Model model, long delay) {
+        for (int i = 0; i < root.getChildCount(layer); i++) {
+            ETreeNode temp = (ETreeNode) Network.get(root.getChildNode(layer, i));
+            int linkDelay = minDelayMatrix.getDelay(root.getIndex(), temp.getIndex());
+            // a cut off subtree keeps its round until the tree is repaired
+            if (linkDelay == DelayMatrix.UNREACHABLE) continue;
+            ETreeLearningProtocol temp_node_pro = (ETreeLearningProtocol) temp.getProtocol(currentProtocolID);
+            temp_node_pro.layersWorkerModel[layer - 1] = model;
+            temp_node_pro.layersModelShared[layer - 1] = true;
+            long pathDelay = delay + linkDelay;
+            if (layer > 1) {
+                temp_node_pro.aggregationsSinceDown[layer - 1] = 0;
+                temp_node_pro.startRound(temp, layer - 1);
+                sendDown(temp, layer - 1, model, pathDelay);
+            } else {
+                EDSimulator.add(pathDelay, ActiveThreadMessage.getInstance(), temp, currentProtocolID);
             }
-            layer--;
-            if (layer == 0) break;
         }
     }
 
+    /**
+     * Starts the next round of the node in the given layer, the models received in the current one are dropped.
+     *
+     * @param node the node of this protocol
+     * @param layer layer the node aggregates in
+     */
+    private void startRound(ETreeNode node, int layer) {
+        localRound[layer]++;
+        layersAggregator[layer] = null;
+        layersReceived[layer].clear();
+        selectChildren(node, layer, recvPercent);
+    }
+
     /**
      * Output loss and accuracy
      *
@@ -266,19 +472,11 @@ public class ETreeLearningProtocol extends AbstractProtocol {
      */
     private boolean canStartNextEpoch() {
         final int currentMaxLayer = CommonState.getPhase();
-        for (Integer id : layersNodeID.get(currentMaxLayer)) {
-            ETreeNode node = (ETreeNode) Network.get(id);
-            if (!node.getLayersStatus(currentMaxLayer)) {
-                return false;
-            }
-        }
+        if (!isLayerAggregated(currentMaxLayer)) return false;
 //        System.out.println("layer " + currentMaxLayer + " finished at time " + CommonState.getTime());
         // else reset status
         for (int layer = currentMaxLayer; layer > 0; layer--) {
-            for (Integer id : layersNodeID.get(layer)) {
-                ETreeNode node = (ETreeNode) Network.get(id);
-                node.setLayersStatus(layer, false);
-            }
+            resetLayer(layer);
         }
         return true;
     }
@@ -289,42 +487,76 @@ public class ETreeLearningProtocol extends AbstractProtocol {
     private void resetForNextEpoch() {
         int currentMaxLayer = CommonState.getPhase();
         int maxDelayPath = 0;
-        for (Integer rootId : layersNodeID.get(currentMaxLayer)) {
-            int layer = currentMaxLayer;
-            ETreeNode root = (ETreeNode) Network.get(rootId);
-            Queue<ETreeNode> q = new LinkedList<>();
-            q.offer(root);
+        ArrayList<Integer> roots = layersNodeID.get(currentMaxLayer);
+        int[] layerDelay = new int[currentMaxLayer + 1];
+        for (int i = 0; i < roots.size(); i++) {
+            Arrays.fill(layerDelay, 0);
+            maxSelectedDelay((ETreeNode) Network.get(roots.get(i)), currentMaxLayer, layerDelay);
             int tempMaxDelayPath = 0;
-            while (!q.isEmpty()) {
-                int cnt = q.size();
-                int delay = 0;
-
-                for (int i = 0; i < cnt; i++) {
-                    ETreeNode top = q.poll();
-                    ArrayList<Integer> listID = ((ETreeLearningProtocol) top.getProtocol(currentProtocolID)).getLayersSelectedID(layer);
-                    for (Integer id : listID) {
-                        ETreeNode temp = (ETreeNode) Network.get(id);
-                        q.offer(temp);
-                        delay = Math.max(delay, minDelayMatrix[top.getIndex()][id]);
-                    }
-                }
-                tempMaxDelayPath += delay;
-                layer--;
-                if (layer == 0) break;
-            }
+            for (int layer = 1; layer <= currentMaxLayer; layer++) tempMaxDelayPath += layerDelay[layer];
             maxDelayPath = Math.max(maxDelayPath, tempMaxDelayPath);
         }
         // update next selected workers
         for (int layer = currentMaxLayer; layer > 0; layer--) {
-            for (Integer id : layersNodeID.get(layer)) {
-                ETreeNode node = (ETreeNode) Network.get(id);
-                ArrayList<Integer> childList = new ArrayList<>(node.getChildNodeList(layer));
-                ArrayList<Integer> selectedWorkers = Utils.randomArray(Math.max((int) (childList.size() * recvPercent), 1), childList);
-                ((ETreeLearningProtocol) node.getProtocol(currentProtocolID)).setLayersSelectedID(layer, selectedWorkers);
+            ArrayList<Integer> nodes = layersNodeID.get(layer);
+            for (int i = 0; i < nodes.size(); i++) {
+                ETreeNode node = (ETreeNode) Network.get(nodes.get(i));
+                ((ETreeLearningProtocol) node.getProtocol(currentProtocolID)).selectChildren(node, layer, recvPercent);
             }
         }
         CommonState.setPhase(1);
         CommonState.setTime(CommonState.getTime() + maxDelayPath);
+        lastProgressTime = CommonState.getTime();
+        epoch++;
+    }
+
+    /**
+     * Walks the selected children below the node and keeps the largest delay from a parent
+     * to a selected child of every layer. Unreachable children are left out, they do not get the model.
+     *
+     * @param node aggregator
+     * @param layer layer the node aggregates in
+     * @param layerDelay largest delay by layer of the parent
+     */
+    private void maxSelectedDelay(ETreeNode node, int layer, int[] layerDelay) {
+        ETreeLearningProtocol node_pro = (ETreeLearningProtocol) node.getProtocol(currentProtocolID);
+        int[] selected = node_pro.layersSelectedID[layer];
+        int from = node_pro.layersSelectedFrom[layer];
+        int to = node_pro.layersSelectedTo[layer];
+        layerDelay[layer] = Math.max(layerDelay[layer], TopoUtil.maxDelay(minDelayMatrix, node.getIndex(), selected, from, to));
+        if (layer == 1) return;
+        for (int i = from; i < to; i++) {
+            if (minDelayMatrix.getDelay(node.getIndex(), selected[i]) == DelayMatrix.UNREACHABLE) continue;
+            maxSelectedDelay((ETreeNode) Network.get(selected[i]), layer - 1, layerDelay);
+        }
+    }
+
+    /**
+     * Drops the models received in the current epoch and starts the epoch again on every node,
+     * e.g. after the tree was changed. Messages sent before the restart are dropped on arrival.
+     *
+     * @param protocolID id of this protocol
+     */
+    public static void restartEpoch(int protocolID) {
+        epoch++;
+        restartedEpoch = epoch;
+        for (int layer = 1; layer < layersNodeID.size(); layer++) {
+            resetLayer(layer);
+            ArrayList<Integer> nodes = layersNodeID.get(layer);
+            for (int i = 0; i < nodes.size(); i++) {
+                ETreeNode node = (ETreeNode) Network.get(nodes.get(i));
+                ETreeLearningProtocol node_pro = (ETreeLearningProtocol) node.getProtocol(protocolID);
+                node_pro.aggregationsSinceDown[layer] = 0;
+                node_pro.startRound(node, layer);
+            }
+        }
+        CommonState.setPhase(1);
+        lastProgressTime = CommonState.getTime();
+        for (int i = 0; i < Network.size(); i++) {
+            // the worker may have a new aggregator whose round equals the one it last trained in
+            ((ETreeLearningProtocol) Network.get(i).getProtocol(protocolID)).startedRound = -1;
+            EDSimulator.add(0, ActiveThreadMessage.getInstance(), Network.get(i), protocolID);
+        }
     }
 
     /**
@@ -335,11 +567,25 @@ public class ETreeLearningProtocol extends AbstractProtocol {
      * @return
      */
     private boolean canUpMessage(int layer) {
-        for (Integer id : layersNodeID.get(layer)) {
-            ETreeNode node = (ETreeNode) Network.get(id);
-            if (!node.getLayersStatus(layer)) return false;
-        }
-        return true;
+        return isLayerAggregated(layer);
+    }
+
+    /**
+     * @param layer
+     * @return if every node of the layer aggregated in the current round of the layer
+     */
+    private static boolean isLayerAggregated(int layer) {
+        return layersAggregated[layer] == layersNodeID.get(layer).size();
+    }
+
+    /**
+     * Starts a new round of the layer, the aggregations of the previous one are forgotten.
+     *
+     * @param layer
+     */
+    private static void resetLayer(int layer) {
+        layersRound[layer]++;
+        layersAggregated[layer] = 0;
     }
 
     /**
@@ -348,7 +594,9 @@ public class ETreeLearningProtocol extends AbstractProtocol {
      * @param layer
      */
     private void upMessageToNextLayer(int layer) {
-        for (Integer id : layersNodeID.get(layer)) {
+        ArrayList<Integer> nodes = layersNodeID.get(layer);
+        for (int i = 0; i < nodes.size(); i++) {
+            int id = nodes.get(i);
             // current node
             ETreeNode node = (ETreeNode) Network.get(id);
             ETreeLearningProtocol node_pro = (ETreeLearningProtocol) node.getProtocol(currentProtocolID);
@@ -360,12 +608,19 @@ public class ETreeLearningProtocol extends AbstractProtocol {
             if (node_parent_pro.isSelected(layer + 1, id)) {
                 // send to next layer
                 ModelHolder latestModelHolder = new BoundedModelHolder(1);
-                latestModelHolder.add((Model) workerModel.clone());
-                sendTo(new MessageUp(node, layer, latestModelHolder), node.getParentNode(layer));
+                latestModelHolder.add(workerModel);
+                node_pro.layersModelShared[layer] = true;
+                sendTo(new MessageUp(node, layer, latestModelHolder, epoch), node.getParentNode(layer));
             }
         }
     }
 
+    /**
+     * Trains the model in place on the local samples.
+     *
+     * @param model worker model of the first layer, not shared
+     * @return the model
+     */
     private Model workerUpdate(Model model) {
         // SGD
         for (int sampleID = 0; instances != null && sampleID < instances.size(); sampleID++) {
@@ -374,12 +629,12 @@ public class ETreeLearningProtocol extends AbstractProtocol {
             double y = instances.getLabel(sampleID);
             model.update(x, y);
         }
-        return (Model) model.clone();
+        return model;
     }
 
     @Override
     public Object clone() {
-        return new ETreeLearningProtocol(prefix, modelHolderName, modelName, layers, recvPercent);
+        return new ETreeLearningProtocol(prefix, modelHolderName, modelName, layers, recvPercent, pipeline, staleness);
     }
 
     /*-------------------------------- Neglect started ------------------------------------*/
@@ -428,23 +683,92 @@ public class ETreeLearningProtocol extends AbstractProtocol {
         return layersWorkerModel[layer];
     }
 
+    /**
+     * @param layer layer of the model
+     * @param model model that no other node or message references
+     */
     public void setLayersWorkerModel(int layer, Model model) {
         layersWorkerModel[layer] = model;
+        layersModelShared[layer] = false;
     }
 
     public static void setLayersNodeID(ArrayList<ArrayList<Integer>> layersNodes) {
         layersNodeID = layersNodes;
+        layersRound = new int[layersNodes.size()];
+        layersAggregated = new int[layersNodes.size()];
+    }
+
+    public static ArrayList<ArrayList<Integer>> getLayersNodeID() {
+        return layersNodeID;
+    }
+
+    /**
+     * @return time of the last aggregation or epoch start
+     */
+    public static long getLastProgressTime() {
+        return lastProgressTime;
+    }
+
+    /**
+     * Returns if the node is done with its part of the current round of the layer.
+     * In pipelined mode the aggregators have no common round, a node is done if it waits for the model
+     * of the layer above instead of the models of its children.
+     *
+     * @param layer layer the node aggregates in
+     * @return if the node aggregated in the current round of the layer
+     */
+    public boolean hasAggregated(int layer) {
+        if (pipeline) {
+            return layer < layers - 1 && aggregationsSinceDown[layer] >= aggregateRatio[layer] + staleness;
+        }
+        return aggregatedRound[layer] == layersRound[layer];
+    }
+
+    /**
+     * @param layer layer the node aggregates in
+     * @return number of aggregations of the node in the layer
+     */
+    public int getAggregateCount(int layer) {
+        return aggregateCount[layer];
     }
 
-    public void setLayersSelectedID(int layer, ArrayList<Integer> layersSelectedID) {
-        this.layersSelectedID[layer] = layersSelectedID;
+    public double getRecvPercent() {
+        return recvPercent;
     }
 
-    public ArrayList<Integer> getLayersSelectedID(int layer) {
-        return layersSelectedID[layer];
+    /**
+     * Selects the children whose models the node waits for in the given layer,
+     * the same ones Utils.randomArray(int, ArrayList) would select from the child list.
+     * The selection reuses the arrays of the previous one, only the bits of the previously
+     * selected children are cleared.
+     *
+     * @param node the node of this protocol
+     * @param layer layer the node aggregates in
+     * @param percent percentage of the children to select, at least one is selected
+     */
+    public void selectChildren(ETreeNode node, int layer, double percent) {
+        int count = node.getChildCount(layer);
+        int[] selected = layersSelectedID[layer];
+        BitSet bits = layersSelected[layer];
+        for (int i = layersSelectedFrom[layer]; i < layersSelectedTo[layer]; i++) bits.clear(selected[i]);
+        if (selected.length < count) selected = layersSelectedID[layer] = new int[count];
+        for (int i = 0; i < count; i++) selected[i] = node.getChildNode(layer, i);
+        int num = TopoUtil.selectedCount(count, percent);
+        Utils.randomArray(num, selected, count);
+        layersSelectedFrom[layer] = count - num;
+        layersSelectedTo[layer] = count;
+        for (int i = count - num; i < count; i++) bits.set(selected[i]);
+    }
+
+    /**
+     * @param layer layer the node aggregates in
+     * @return copy of the ids of the selected children
+     */
+    public int[] getLayersSelectedID(int layer) {
+        return Arrays.copyOfRange(layersSelectedID[layer], layersSelectedFrom[layer], layersSelectedTo[layer]);
     }
 
     private boolean isSelected(int layer, int id) {
-        return layersSelectedID[layer].contains(id);
+        return layersSelected[layer].get(id);
     }
 }
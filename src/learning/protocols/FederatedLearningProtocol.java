@@ -5,7 +5,10 @@ import learning.main.Main;
 import learning.messages.ActiveThreadMessage;
 import learning.messages.ModelMessage;
 import learning.modelHolders.BoundedModelHolder;
+import learning.modelHolders.ModelHolderAggregator;
 import learning.models.LogisticRegression;
+import learning.topology.DelayMatrix;
+import learning.transport.MinDelayTransport;
 import learning.utils.SparseVector;
 import learning.utils.Utils;
 import peersim.config.Configuration;
@@ -36,6 +39,8 @@ public class FederatedLearningProtocol extends AbstractProtocol {
 
     private Model workerModel;
     private ModelHolder receivedModels;
+    /* running aggregate of the models received by the master in the current round */
+    private ModelAggregator<Model> aggregator;
     private static int masterID;
     private ArrayList<Integer> selectedID;
 
@@ -44,6 +49,11 @@ public class FederatedLearningProtocol extends AbstractProtocol {
         modelName = Configuration.getString(prefix + "." + PAR_MODELNAME);
         compress = Configuration.getInt(prefix + "." + PAR_COMPRESS);
         recvPercent = Configuration.getDouble(prefix + "." + PAR_RECVPERCENT);
+        // a lost model would stall the round, the aggregation waits for every selected one
+        if (MinDelayTransport.getDrop(prefix) > 0) {
+            throw new RuntimeException("Exception occured in FederatedLearningProtocol: messages must not be dropped, "
+                    + "the aggregation waits for the models of all selected nodes");
+        }
         init(prefix);
     }
 
@@ -106,18 +116,21 @@ public class FederatedLearningProtocol extends AbstractProtocol {
     }
 
     private void masterAggregate(ModelMessage message) {
-        Model model = (Model) message.getModel(0).clone();
-        receivedModels.add(model);
+        // fold the model into the running aggregate, the workers send copies of their models
+        if (aggregator == null) {
+            aggregator = ModelHolderAggregator.getAggregator(receivedModels, workerModel);
+        }
+        aggregator.add(message.getModel(0));
 
         int workerNum = Math.max((int) ((Network.size() - 1) * recvPercent), 1);
 
-        if (receivedModels.size() == workerNum) {
+        if (aggregator.size() == workerNum) {
             // master node aggregate
-            workerModel = ((Mergeable) workerModel).aggregateDefault(receivedModels);
+            workerModel = aggregator.getAggregate();
             // print 0-1 error
             computeLoss();
-            // clear receivedModels
-            receivedModels.clear();
+            // start the next running aggregate
+            aggregator = null;
             // reset selectedWorkers
             ArrayList<Integer> workers = new ArrayList<>();
             for (int i = 0; i < Network.size(); i++)
@@ -127,7 +140,8 @@ public class FederatedLearningProtocol extends AbstractProtocol {
             // The simulation time update here should be the same as the E-Tree
             int delay = 0;
             for (Integer id : selectedID) {
-                delay = Math.max(delay, minDelayMatrix[masterID][id]);
+                int linkDelay = minDelayMatrix.getDelay(masterID, id);
+                if (linkDelay != DelayMatrix.UNREACHABLE) delay = Math.max(delay, linkDelay);
             }
             CommonState.setTime(CommonState.getTime() + delay);
 
@@ -7,6 +7,7 @@ import learning.interfaces.ModelHolder;
 import learning.messages.ActiveThreadMessage;
 import learning.messages.ModelMessage;
 import learning.modelHolders.BoundedModelHolder;
+import learning.topology.DelayMatrix;
 import learning.utils.SparseVector;
 import peersim.config.Configuration;
 import peersim.core.Node;
@@ -108,7 +109,10 @@ public class GossipLearningProtocol extends AbstractProtocol {
         // source node next update moment
         int src = currentNode.getIndex();
         int dest = message.getSource().getIndex();
-        EDSimulator.add(minDelayMatrix[src][dest], ActiveThreadMessage.getInstance(),
+        int delay = minDelayMatrix.getDelay(src, dest);
+        // the link failed while the message was on its way, the source does not hear back
+        if (delay == DelayMatrix.UNREACHABLE) return;
+        EDSimulator.add(delay, ActiveThreadMessage.getInstance(),
                 message.getSource(), currentProtocolID);
     }
 
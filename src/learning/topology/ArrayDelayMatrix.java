@@ -0,0 +1,38 @@
+package learning.topology;
+
+/**
+ * Minimum delays kept on the heap as one int row per node.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class ArrayDelayMatrix implements DelayMatrix {
+    private final int[][] minDelayMatrix;
+
+    public ArrayDelayMatrix(int[][] minDelayMatrix) {
+        this.minDelayMatrix = minDelayMatrix;
+    }
+
+    @Override
+    public int size() {
+        return minDelayMatrix.length;
+    }
+
+    @Override
+    public int getDelay(int from, int to) {
+        return minDelayMatrix[from][to];
+    }
+
+    @Override
+    public void setRow(int source, int[] row) {
+        System.arraycopy(row, 0, minDelayMatrix[source], 0, row.length);
+        for (int j = 0; j < row.length; j++) {
+            minDelayMatrix[j][source] = row[j];
+        }
+    }
+
+    @Override
+    public long memoryBytes() {
+        return 4L * minDelayMatrix.length * minDelayMatrix.length;
+    }
+}
@@ -0,0 +1,381 @@
+package learning.topology;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Physical network topology in compressed sparse row (CSR) form.
+ * The neighbours of node u are stored in targets[offsets[u] .. offsets[u+1])
+ * sorted by node index, with the link delays at the same positions in delays.
+ * Memory grows with the number of edges instead of n^2.
+ *
+ * Notice that the index of node starts with 0.<br/>
+ * Besides the text edge list a topology can be stored in a binary form, which is the CSR
+ * arrays themselves (little endian): a 16 byte header (magic, version, n, number of entries)
+ * followed by offsets, targets and delays. {@link #load} recognises it by its magic,
+ * see {@link #saveBinary} and {@link TopologyConverter}.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class CSRGraph {
+    /* "ECSR" read as a little endian int */
+    private static final int BINARY_MAGIC = 0x52534345;
+    private static final int BINARY_VERSION = 1;
+    private static final int BINARY_HEADER_BYTES = 16;
+    /* bytes mapped at once while reading a binary topology */
+    private static final int BINARY_WINDOW = 1 << 28;
+
+    private final int n;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] delays;
+
+    private CSRGraph(int n, int[] offsets, int[] targets, int[] delays) {
+        this.n = n;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.delays = delays;
+    }
+
+    /**
+     * Reads an undirected edge list ("from to delay" per line, node ids start with 1)
+     * and builds the CSR adjacency. Every edge is stored in both directions,
+     * self loops are ignored and if an edge is listed more than once the last delay wins.
+     * Binary topology files are read with {@link #loadBinary}.
+     *
+     * @param n number of nodes
+     * @param filePath edge list file
+     * @return graph
+     */
+    public static CSRGraph load(int n, String filePath) {
+        if (isBinary(filePath)) {
+            return loadBinary(n, filePath);
+        }
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        int[] delay = new int[1024];
+        int m = 0;
+
+        try {
+            FileReader fr = new FileReader(filePath);
+            BufferedReader bf = new BufferedReader(fr);
+            String str;
+
+            while ((str = bf.readLine()) != null) {
+                String[] temp = str.split(" ");
+                if (m == from.length) {
+                    from = Arrays.copyOf(from, m << 1);
+                    to = Arrays.copyOf(to, m << 1);
+                    delay = Arrays.copyOf(delay, m << 1);
+                }
+                from[m] = Integer.parseInt(temp[0])-1;
+                to[m] = Integer.parseInt(temp[1])-1;
+                delay[m] = Integer.parseInt(temp[2]);
+                m++;
+            }
+            bf.close();
+            fr.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return fromEdges(n, from, to, delay, m);
+    }
+
+    /**
+     * @param filePath topology file
+     * @return true if the file starts with the magic of the binary topology format
+     */
+    public static boolean isBinary(String filePath) {
+        try {
+            DataInputStream in = new DataInputStream(new FileInputStream(filePath));
+            try {
+                return Integer.reverseBytes(in.readInt()) == BINARY_MAGIC;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads a binary topology file straight into the CSR arrays through memory mapped windows.
+     * If the file was written for another number of nodes, the graph is rebuilt from its links.
+     *
+     * @param n number of nodes
+     * @param filePath binary topology file
+     * @return graph
+     */
+    public static CSRGraph loadBinary(int n, String filePath) {
+        try {
+            RandomAccessFile raf = new RandomAccessFile(filePath, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                while (header.hasRemaining() && channel.read(header) > 0);
+                header.flip();
+                if (header.remaining() < BINARY_HEADER_BYTES || header.getInt(0) != BINARY_MAGIC
+                        || header.getInt(4) != BINARY_VERSION) {
+                    throw new IOException("not a binary topology of version " + BINARY_VERSION);
+                }
+                int storedN = header.getInt(8);
+                int entries = header.getInt(12);
+                if (storedN < 0 || entries < 0
+                        || channel.size() != BINARY_HEADER_BYTES + 4L * (storedN + 1 + 2L * entries)) {
+                    throw new IOException("truncated binary topology");
+                }
+                int[] offsets = new int[storedN + 1];
+                int[] targets = new int[entries];
+                int[] delays = new int[entries];
+                long position = readInts(channel, BINARY_HEADER_BYTES, offsets);
+                position = readInts(channel, position, targets);
+                readInts(channel, position, delays);
+                CSRGraph graph = new CSRGraph(storedN, offsets, targets, delays);
+                return storedN == n ? graph : graph.resize(n);
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Exception occured in loading the topology " + filePath + ": " + e);
+        }
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] dst) throws IOException {
+        int done = 0;
+        while (done < dst.length) {
+            int count = Math.min(dst.length - done, BINARY_WINDOW >>> 2);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count);
+            window.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(dst, done, count);
+            done += count;
+            position += 4L * count;
+        }
+        return position;
+    }
+
+    /**
+     * Writes the graph in the binary topology format.
+     *
+     * @param filePath output file
+     */
+    public void saveBinary(String filePath) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(filePath, "rw");
+        try {
+            raf.setLength(0);
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(BINARY_MAGIC).putInt(BINARY_VERSION).putInt(n).putInt(offsets[n]);
+            writeInts(channel, buffer, offsets, offsets.length);
+            writeInts(channel, buffer, targets, offsets[n]);
+            writeInts(channel, buffer, delays, offsets[n]);
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] src, int len) throws IOException {
+        int done = 0;
+        while (done < len) {
+            int count = Math.min(len - done, buffer.remaining() >>> 2);
+            buffer.asIntBuffer().put(src, done, count);
+            buffer.position(buffer.position() + 4 * count);
+            done += count;
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                while (buffer.hasRemaining()) channel.write(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the graph for another number of nodes from its links.
+     */
+    private CSRGraph resize(int size) {
+        int m = offsets[n] / 2;
+        int[] from = new int[m];
+        int[] to = new int[m];
+        int[] delay = new int[m];
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            for (int pos = offsets[u]; pos < offsets[u + 1]; pos++) {
+                if (targets[pos] > u) {
+                    from[e] = u;
+                    to[e] = targets[pos];
+                    delay[e++] = delays[pos];
+                }
+            }
+        }
+        return fromEdges(size, from, to, delay, e);
+    }
+
+    /**
+     * Builds the CSR adjacency of an undirected graph from the first m edges of the given arrays.
+     *
+     * @param n number of nodes
+     * @param from edge sources (0-based)
+     * @param to edge targets (0-based)
+     * @param delay edge delays
+     * @param m number of edges
+     * @return graph
+     */
+    public static CSRGraph fromEdges(int n, int[] from, int[] to, int[] delay, int m) {
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            if (from[e] < 0 || from[e] >= n || to[e] < 0 || to[e] >= n) {
+                throw new RuntimeException("Edge " + (from[e]+1) + " " + (to[e]+1) + " is out of the network of size " + n);
+            }
+            if (from[e] == to[e]) continue;
+            offsets[from[e] + 1]++;
+            offsets[to[e] + 1]++;
+        }
+        for (int u = 0; u < n; u++) offsets[u + 1] += offsets[u];
+
+        // counting sort keeps the file order inside a row
+        int[] targets = new int[offsets[n]];
+        int[] delays = new int[offsets[n]];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < m; e++) {
+            if (from[e] == to[e]) continue;
+            targets[next[from[e]]] = to[e];
+            delays[next[from[e]]++] = delay[e];
+            targets[next[to[e]]] = from[e];
+            delays[next[to[e]]++] = delay[e];
+        }
+
+        // sort every row by target and drop repeated edges (the last one wins)
+        int maxDegree = 0;
+        for (int u = 0; u < n; u++) maxDegree = Math.max(maxDegree, offsets[u + 1] - offsets[u]);
+        long[] keys = new long[maxDegree];
+        int[] rowDelays = new int[maxDegree];
+        int write = 0;
+        int start = 0;
+        for (int u = 0; u < n; u++) {
+            int end = offsets[u + 1];
+            int len = end - start;
+            for (int i = 0; i < len; i++) {
+                keys[i] = ((long) targets[start + i] << 32) | i;
+                rowDelays[i] = delays[start + i];
+            }
+            Arrays.sort(keys, 0, len);
+            offsets[u] = write;
+            for (int i = 0; i < len; i++) {
+                int target = (int) (keys[i] >>> 32);
+                if (i + 1 < len && (int) (keys[i + 1] >>> 32) == target) continue;
+                targets[write] = target;
+                delays[write++] = rowDelays[(int) keys[i]];
+            }
+            start = end;
+        }
+        offsets[n] = write;
+
+        return new CSRGraph(n, offsets, Arrays.copyOf(targets, write), Arrays.copyOf(delays, write));
+    }
+
+    /**
+     * @return number of nodes
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * @return number of stored (directed) adjacency entries, i.e. twice the number of links
+     */
+    public int edgeCount() {
+        return offsets[n];
+    }
+
+    /**
+     * @param u node index
+     * @return position of the first neighbour of u
+     */
+    public int rowStart(int u) {
+        return offsets[u];
+    }
+
+    /**
+     * @param u node index
+     * @return position after the last neighbour of u
+     */
+    public int rowEnd(int u) {
+        return offsets[u + 1];
+    }
+
+    /**
+     * @param u node index
+     * @return number of neighbours of u
+     */
+    public int degree(int u) {
+        return offsets[u + 1] - offsets[u];
+    }
+
+    /**
+     * @param pos adjacency position, between rowStart(u) and rowEnd(u)
+     * @return the neighbour stored at the given position
+     */
+    public int target(int pos) {
+        return targets[pos];
+    }
+
+    /**
+     * @param pos adjacency position, between rowStart(u) and rowEnd(u)
+     * @return the link delay stored at the given position
+     */
+    public int delay(int pos) {
+        return delays[pos];
+    }
+
+    /**
+     * Returns the delay of the direct link between two nodes,
+     * 0 if from == to and Integer.MAX_VALUE if they are not neighbours.
+     *
+     * @param from node index
+     * @param to node index
+     * @return link delay
+     */
+    public int getDelay(int from, int to) {
+        if (from == to) return 0;
+        int pos = Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to);
+        return pos < 0 ? Integer.MAX_VALUE : delays[pos];
+    }
+
+    /**
+     * Changes the delay of an existing link in both directions.
+     * Integer.MAX_VALUE marks a failed link, which shortest path searches skip.
+     *
+     * @param from node index
+     * @param to node index
+     * @param delay new link delay
+     * @return the former delay
+     */
+    public int setDelay(int from, int to, int delay) {
+        int pos = Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to);
+        int back = Arrays.binarySearch(targets, offsets[to], offsets[to + 1], from);
+        if (from == to || pos < 0 || back < 0) {
+            throw new RuntimeException("There is no link between " + (from+1) + " and " + (to+1) + " in the topology");
+        }
+        int old = delays[pos];
+        delays[pos] = delay;
+        delays[back] = delay;
+        return old;
+    }
+
+    /**
+     * @return approximate heap size of the adjacency arrays in bytes
+     */
+    public long memoryBytes() {
+        return 4L * (offsets.length + targets.length + delays.length);
+    }
+}
@@ -0,0 +1,48 @@
+package learning.topology;
+
+/**
+ * Read access to the all-pairs minimum delays of the physical network.
+ * Implementations decide where the delays live (heap arrays, a memory mapped cache file, ...),
+ * the users only look them up.<br/>
+ * Nodes that can not reach each other, e.g. after a link failure, have the delay {@link #UNREACHABLE}.
+ * It is not a usable delay: users must check for it before they add it to a time or a path,
+ * the transports drop messages between such nodes.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public interface DelayMatrix {
+    /**
+     * Delay between nodes that can not reach each other.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * @return number of nodes
+     */
+    public int size();
+
+    /**
+     * Returns the minimum delay from one node to another,
+     * {@link #UNREACHABLE} if message can not from start to end.
+     *
+     * @param from node index
+     * @param to node index
+     * @return minimum delay
+     */
+    public int getDelay(int from, int to);
+
+    /**
+     * Replaces the minimum delays between the source and every node, in both directions,
+     * after the physical topology has changed.
+     *
+     * @param source node index
+     * @param row new minimum delays from the source, {@link #UNREACHABLE} if unreachable
+     */
+    public void setRow(int source, int[] row);
+
+    /**
+     * @return approximate number of bytes used by the delays
+     */
+    public long memoryBytes();
+}
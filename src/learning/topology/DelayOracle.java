@@ -0,0 +1,228 @@
+package learning.topology;
+
+import learning.utils.Parallel;
+import peersim.config.Configuration;
+import peersim.core.Network;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide source of the physical topology and its all-pairs minimum delays.
+ * The topology file is loaded once and the minimum delay matrix is computed once,
+ * on first use, and then handed to every component that asks for the same file
+ * (logical topologies, transports, initializers).<br/>
+ * If the global parameter DELAY_CACHE_DIR is set, the delays are kept in a memory mapped
+ * cache file in that directory keyed by the content hash of the topology file,
+ * so later runs on the same topology map the file instead of recomputing it.<br/>
+ * The global parameter DELAY_ORACLE selects the storage of the delays:
+ * "dense" (default) keeps the full matrix (or the mapped cache),
+ * "compact" keeps only the upper triangle with the narrowest delay width off-heap,
+ * see {@link TriangularDelayMatrix}, and "lazy" computes the rows on first use and keeps
+ * at most DELAY_CACHE_ROWS of them (default 1024), see {@link LazyDelayMatrix}.
+ * The lazy mode is meant for large networks where only a few nodes send messages.
+ * The server placement of federated learning reads every row of the nodes it places,
+ * and the k-medoids partitioning of ETree reads the rows of the partitioned nodes in every
+ * swap pass, so with fewer cached rows than nodes each pass computes the rows again.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class DelayOracle {
+    private static final String PAR_CACHEDIR = "DELAY_CACHE_DIR";
+    private static final String PAR_MODE = "DELAY_ORACLE";
+    private static final String PAR_CACHEROWS = "DELAY_CACHE_ROWS";
+    /* number of rows recomputed in parallel before they are written back after a link change */
+    private static final int UPDATE_BATCH = 64;
+
+    private static final Map<String, DelayOracle> instances = new HashMap<>();
+
+    private final String topoFilePath;
+    private final CSRGraph graph;
+    private DelayMatrix minDelayMatrix;
+    /* true once a link delay was changed, the cache file then no longer matches the graph */
+    private boolean modified;
+
+    private DelayOracle(int n, String topoFilePath) {
+        this.topoFilePath = topoFilePath;
+        this.graph = TopoUtil.getGraph(n, topoFilePath);
+    }
+
+    /**
+     * Returns the shared oracle of the given topology file for the current network size.
+     *
+     * @param topoFilePath physical topology file
+     * @return oracle
+     */
+    public static DelayOracle getInstance(String topoFilePath) {
+        return getInstance(Network.size(), topoFilePath);
+    }
+
+    /**
+     * Returns the shared oracle of the given topology file with n nodes.
+     *
+     * @param n number of nodes
+     * @param topoFilePath physical topology file
+     * @return oracle
+     */
+    public static synchronized DelayOracle getInstance(int n, String topoFilePath) {
+        String key = n + "@" + topoFilePath;
+        DelayOracle oracle = instances.get(key);
+        if (oracle == null) {
+            oracle = new DelayOracle(n, topoFilePath);
+            instances.put(key, oracle);
+        }
+        return oracle;
+    }
+
+    /**
+     * @return the physical topology
+     */
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return number of nodes
+     */
+    public int size() {
+        return graph.size();
+    }
+
+    /**
+     * Returns the all-pairs minimum delay matrix, computing or mapping it on the first call.
+     *
+     * @return minimum delay matrix
+     */
+    public synchronized DelayMatrix getMinDelayMatrix() {
+        if (minDelayMatrix == null) {
+            long start = System.currentTimeMillis();
+            String mode = Configuration.getString(PAR_MODE, "dense");
+            String cacheDir = Configuration.getString(PAR_CACHEDIR, null);
+            String source;
+            if (mode.equals("compact")) {
+                TriangularDelayMatrix compact = TriangularDelayMatrix.build(graph);
+                minDelayMatrix = compact;
+                source = "compact " + compact.getDelayBytes() + " byte delays";
+            } else if (mode.equals("lazy")) {
+                LazyDelayMatrix lazy = new LazyDelayMatrix(graph, Configuration.getInt(PAR_CACHEROWS, 1024));
+                minDelayMatrix = lazy;
+                source = "lazy rows, at most " + lazy.getMaxRows() + " cached";
+                if (lazy.getMaxRows() < graph.size()) {
+                    System.err.println("DelayOracle: warning, " + PAR_CACHEROWS + " " + lazy.getMaxRows()
+                            + " is below the " + graph.size() + " nodes, a partitioning of more nodes than that"
+                            + " computes the delay rows again in every k-medoids pass");
+                }
+            } else if (!mode.equals("dense")) {
+                throw new RuntimeException("Exception occured in DelayOracle: unknown " + PAR_MODE + " " + mode);
+            } else if (cacheDir == null || modified) {
+                minDelayMatrix = new ArrayDelayMatrix(TopoUtil.generateMinDelayMatrix(graph));
+                source = "computed";
+            } else {
+                MappedDelayMatrix mapped = MappedDelayMatrix.openOrBuild(graph, topoFilePath, new File(cacheDir));
+                minDelayMatrix = mapped;
+                source = (mapped.isRebuilt() ? "rebuilt cache " : "mapped cache ") + mapped.getFile();
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            long bytes = graph.memoryBytes() + minDelayMatrix.memoryBytes();
+            System.err.println("DelayOracle: " + topoFilePath + ", nodes: " + graph.size()
+                    + ", links: " + graph.edgeCount() / 2
+                    + ", " + source
+                    + ", construction time: " + elapsed + " ms"
+                    + ", memory: " + String.format("%.1f", bytes / 1048576.0) + " MB");
+        }
+        return minDelayMatrix;
+    }
+
+    /**
+     * Changes the delay of a physical link and updates the minimum delays incrementally,
+     * so every user of {@link #getMinDelayMatrix()} sees the new delays.
+     * Integer.MAX_VALUE fails the link.
+     * <ul>
+     * <li>If the delay grows, only the sources whose shortest path tree may contain the link,
+     * i.e. d(s, a) + old == d(s, b) or the other way round, are searched again.</li>
+     * <li>If the delay shrinks, a new shortest path uses the link at most once, so the rows of the
+     * sources that get closer to one end are min(d(s, t), d(s, a) + delay + d(b, t), d(s, b) + delay + d(a, t)).</li>
+     * </ul>
+     * The rows of the lazy mode are dropped and computed again on demand.
+     *
+     * @param a node index
+     * @param b node index
+     * @param delay new link delay
+     * @return number of sources whose delays were updated
+     */
+    public synchronized int setLinkDelay(final int a, final int b, final int delay) {
+        final int old = graph.getDelay(a, b);
+        graph.setDelay(a, b, delay);
+        modified = true;
+        if (old == delay || minDelayMatrix == null) return 0;
+        if (minDelayMatrix instanceof LazyDelayMatrix) {
+            ((LazyDelayMatrix) minDelayMatrix).clear();
+            return 0;
+        }
+
+        final int n = graph.size();
+        final int[] rowA = new int[n];
+        final int[] rowB = new int[n];
+        for (int s = 0; s < n; s++) {
+            rowA[s] = minDelayMatrix.getDelay(a, s);
+            rowB[s] = minDelayMatrix.getDelay(b, s);
+        }
+        int[] affected = new int[n];
+        int count = 0;
+        for (int s = 0; s < n; s++) {
+            boolean changed;
+            if (delay > old) {
+                changed = (rowA[s] != Integer.MAX_VALUE && (long) rowA[s] + old == rowB[s])
+                        || (rowB[s] != Integer.MAX_VALUE && (long) rowB[s] + old == rowA[s]);
+            } else {
+                changed = (long) rowA[s] + delay < rowB[s] || (long) rowB[s] + delay < rowA[s];
+            }
+            if (changed) affected[count++] = s;
+        }
+
+        // rows are computed in parallel batches and then written one by one
+        final int[] sources = affected;
+        final int[][] rows = new int[Math.min(count, UPDATE_BATCH)][];
+        for (int first = 0; first < count; first += UPDATE_BATCH) {
+            final int batchStart = first;
+            int size = Math.min(UPDATE_BATCH, count - first);
+            Parallel.forRange(0, size, 1, new Parallel.RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    ShortestPaths engine = delay > old ? new ShortestPaths(graph) : null;
+                    for (int i = from; i < to; i++) {
+                        int s = sources[batchStart + i];
+                        if (engine != null) {
+                            rows[i] = engine.singleSource(s);
+                            continue;
+                        }
+                        int[] row = new int[n];
+                        for (int t = 0; t < n; t++) {
+                            long viaLink = Math.min((long) rowA[s] + delay + rowB[t], (long) rowB[s] + delay + rowA[t]);
+                            row[t] = (int) Math.min(minDelayMatrix.getDelay(s, t), viaLink);
+                        }
+                        rows[i] = row;
+                    }
+                }
+            });
+            for (int i = 0; i < size; i++) {
+                minDelayMatrix.setRow(sources[batchStart + i], rows[i]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the minimum delay between two nodes,
+     * Integer.MAX_VALUE if message can not from start to end.
+     *
+     * @param from node index
+     * @param to node index
+     * @return minimum delay
+     */
+    public int getDelay(int from, int to) {
+        return getMinDelayMatrix().getDelay(from, to);
+    }
+}
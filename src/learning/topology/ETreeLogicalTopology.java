@@ -26,9 +26,29 @@ public class ETreeLogicalTopology extends WireGraph {
     private static final String PAR_RECVPERCENT = "recvPercent";
     private final double recvPercent;
 
+    /**
+     * Number of random partitioning restarts per layer, the partition with the lowest
+     * max cluster delay at recvPercent is kept. 0 (default) runs a single k-medoids search.
+     */
+    private static final String PAR_RESTARTS = "restarts";
+    private final int restarts;
+
+    /**
+     * Stops the restarts of a layer after this many restarts without improvement,
+     * 0 (default) runs all of them.
+     */
+    private static final String PAR_PATIENCE = "patience";
+    private final int patience;
+
+    /**
+     * How the aggregator of a group is chosen: "medoid" (default) keeps the k-medoid, "quantile" takes
+     * the member with the lowest delay at recvPercent to the other members and reports both delays per layer.
+     */
+    private static final String PAR_PLACEMENT = "placement";
+    private final String placement;
 
     /**@hidden */
-    private int[][] graph;
+    private DelayOracle delayOracle;
 
 
     /**
@@ -41,6 +61,12 @@ public class ETreeLogicalTopology extends WireGraph {
         topoFilePath = Configuration.getString("TOPO_FILEPATH");
         layers = Configuration.getInt(prefix + "." + PAR_LAYERS);
         recvPercent = Configuration.getDouble(prefix + "." + PAR_RECVPERCENT);
+        restarts = Configuration.getInt(prefix + "." + PAR_RESTARTS, 0);
+        patience = Configuration.getInt(prefix + "." + PAR_PATIENCE, 0);
+        placement = Configuration.getString(prefix + "." + PAR_PLACEMENT, "medoid");
+        if (!placement.equals("quantile") && !placement.equals("medoid")) {
+            throw new RuntimeException("Exception occured in ETreeLogicalTopology: unknown placement " + placement);
+        }
         // init groups
         String[] temp_groups = Configuration.getString(prefix + "." + PAR_GROUPS).split(",");
         groups = new int[layers];
@@ -48,7 +74,7 @@ public class ETreeLogicalTopology extends WireGraph {
             groups[i] = Integer.parseInt(temp_groups[i]);
 
         // gets physical network topology
-        graph = TopoUtil.getGraph(Network.size(), topoFilePath);
+        delayOracle = DelayOracle.getInstance(topoFilePath);
     }
 
     //--------------------------------------------------------------------------
@@ -72,7 +98,14 @@ public class ETreeLogicalTopology extends WireGraph {
         for (int layer = 0; layer < layers; layer++) {
             layersNodeID.add(new ArrayList<>(lastNodeIndexes));
             // gets the grouping result for the current layer
-            res = TopoUtil.getGraphPartitionResult(graph, lastNodeIndexes, groups[layer]);
+            if (restarts > 0) {
+                res = TopoUtil.getGraphPartitionResult(delayOracle.getMinDelayMatrix(), lastNodeIndexes,
+                        recvPercent, groups[layer], restarts, patience);
+            } else {
+                res = TopoUtil.getGraphPartitionResult(delayOracle.getMinDelayMatrix(), lastNodeIndexes, groups[layer]);
+            }
+
+            if (placement.equals("quantile")) placeAggregators(layer, res);
 
             lastNodeIndexes.clear();
             for (ArrayList<Integer> group : res) {
@@ -109,7 +142,7 @@ public class ETreeLogicalTopology extends WireGraph {
                 ETreeNode node = (ETreeNode) Network.get(id);
                 System.out.println("Parent node: " + node.getParentNode(layer));
                 System.out.print("Child Node: ");
-                for (Integer nodeid : node.getChildNodeList(layer)) {
+                for (int nodeid : node.getChildNodes(layer)) {
                     System.out.print(nodeid + " ");
                 }
                 System.out.println();
@@ -118,4 +151,32 @@ public class ETreeLogicalTopology extends WireGraph {
         }
         /*---------- debug finished --------- */
     }
+
+    /**
+     * Moves the member with the lowest delay at recvPercent to the last position of every group
+     * and prints the largest and the mean aggregator delay of the layer next to the ones of the k-medoids.
+     *
+     * @param layer current layer
+     * @param res the members of every group followed by its k-medoid
+     */
+    private void placeAggregators(int layer, ArrayList<ArrayList<Integer>> res) {
+        DelayMatrix minDelayMatrix = delayOracle.getMinDelayMatrix();
+        int[] medoidDelays = new int[res.size()];
+        for (int g = 0; g < res.size(); g++) {
+            medoidDelays[g] = TopoUtil.aggregatorDelay(minDelayMatrix, res.get(g), recvPercent);
+        }
+        int[] delays = TopoUtil.placeAggregators(minDelayMatrix, res, recvPercent);
+
+        long medoidSum = 0, sum = 0;
+        int medoidMax = 0, max = 0;
+        for (int g = 0; g < res.size(); g++) {
+            medoidSum += medoidDelays[g];
+            medoidMax = Math.max(medoidMax, medoidDelays[g]);
+            sum += delays[g];
+            max = Math.max(max, delays[g]);
+        }
+        System.err.println("ETreeLogicalTopology: layer " + layer + ", groups: " + res.size()
+                + ", quantile placement, max delay: " + max + ", mean delay: " + (double) sum / res.size()
+                + " (medoid max: " + medoidMax + ", mean: " + (double) medoidSum / res.size() + ")");
+    }
 }
@@ -0,0 +1,235 @@
+package learning.topology;
+
+import learning.utils.Utils;
+import peersim.config.Configuration;
+import peersim.config.ParsedProperties;
+import peersim.core.CommonState;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Searches the number of layers and groups of an ETree for a topology without running the training.
+ * Every candidate is wired like {@link ETreeLogicalTopology} does, i.e. the nodes of a layer are
+ * partitioned into groups and the aggregators of the groups form the next layer, and one epoch is
+ * estimated with every aggregation ratio 1:
+ * <ul>
+ * <li>upwards every layer waits for its slowest group, whose aggregator waits for the delay
+ * at recvPercent among its members, see {@link TopoUtil#aggregatorDelay}, plus the time to push
+ * the models through the links if a model size is given, like {@link learning.transport.BandwidthTransport};</li>
+ * <li>downwards the largest delay from a parent to its selected children of every layer is added, as the protocol
+ * does when it starts the next epoch (ETreeLearningProtocol.resetForNextEpoch); the children are drawn like the
+ * protocol selects them, see {@link TopoUtil#selectedCount} and {@link TopoUtil#maxDelay}.</li>
+ * </ul>
+ * The candidates with a common prefix of group counts share the partitions of that prefix.
+ * Run it with an ETree configuration file and optional overrides, it reads network.size,
+ * TOPO_FILEPATH, random.seed, the delay oracle parameters and
+ * <ul>
+ * <li>tuner.recvPercent: percentage of the models an aggregator waits for (default RECV_PERCENT or 1.0)</li>
+ * <li>tuner.maxLayers: largest number of layers (default 4)</li>
+ * <li>tuner.groups: candidate group counts of the layers, comma separated (default 2, 4, 8, ... below the network size)</li>
+ * <li>tuner.placement: medoid (default) or quantile aggregators, see {@link ETreeLogicalTopology}</li>
+ * <li>tuner.restarts, tuner.patience: partitioning restarts, see {@link ETreeLogicalTopology}</li>
+ * <li>tuner.modelSize: bytes of a model, 0 (default) ignores the bandwidth</li>
+ * <li>tuner.uplink, tuner.downlink: bandwidth of the nodes in bytes per millisecond (default 12500)</li>
+ * <li>tuner.out: file the best configuration is written to (optional)</li>
+ * </ul>
+ * The best configuration is printed to the standard output.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class ETreeTuner {
+    private static final String PREFIX = "tuner";
+
+    private final DelayMatrix minDelayMatrix;
+    private final double recvPercent;
+    private final int maxLayers;
+    private final int[] candidates;
+    private final boolean quantilePlacement;
+    private final int restarts;
+    private final int patience;
+    private final long modelSize;
+    private final double uplink;
+    private final double downlink;
+
+    private int[] bestGroups;
+    private long bestEpochDelay = Long.MAX_VALUE;
+    private int evaluated;
+
+    private ETreeTuner(DelayMatrix minDelayMatrix) {
+        this.minDelayMatrix = minDelayMatrix;
+        int n = minDelayMatrix.size();
+        recvPercent = Configuration.getDouble(PREFIX + ".recvPercent", Configuration.getDouble("RECV_PERCENT", 1.0));
+        maxLayers = Configuration.getInt(PREFIX + ".maxLayers", 4);
+        String placement = Configuration.getString(PREFIX + ".placement", "medoid");
+        if (!placement.equals("quantile") && !placement.equals("medoid")) {
+            throw new RuntimeException("Exception occured in ETreeTuner: unknown placement " + placement);
+        }
+        quantilePlacement = placement.equals("quantile");
+        restarts = Configuration.getInt(PREFIX + ".restarts", 0);
+        patience = Configuration.getInt(PREFIX + ".patience", 0);
+        modelSize = Configuration.getLong(PREFIX + ".modelSize", 0);
+        uplink = Configuration.getDouble(PREFIX + ".uplink", 12500);
+        downlink = Configuration.getDouble(PREFIX + ".downlink", uplink);
+        if (maxLayers < 2) {
+            throw new RuntimeException("Exception occured in ETreeTuner: maxLayers must be at least 2");
+        }
+
+        String groups = Configuration.getString(PREFIX + ".groups", "");
+        if (groups.isEmpty()) {
+            int count = 0;
+            for (int k = 2; k < n; k *= 2) count++;
+            candidates = new int[count];
+            for (int i = 0, k = 2; i < count; i++, k *= 2) candidates[i] = k;
+        } else {
+            String[] values = groups.split(",");
+            candidates = new int[values.length];
+            for (int i = 0; i < values.length; i++) candidates[i] = Integer.parseInt(values[i].trim());
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: ETreeTuner <config file> [key=value ...]");
+            System.exit(1);
+        }
+        Configuration.setConfig(new ParsedProperties(args));
+        CommonState.initializeRandom(Configuration.getLong("random.seed", 1234567890L));
+        int n = Configuration.getInt("network.size");
+        DelayMatrix minDelayMatrix = DelayOracle.getInstance(n, Configuration.getString("TOPO_FILEPATH")).getMinDelayMatrix();
+
+        long start = System.currentTimeMillis();
+        ETreeTuner tuner = new ETreeTuner(minDelayMatrix);
+        ArrayList<Integer> nodeIds = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) nodeIds.add(i);
+        tuner.search(nodeIds, new int[0], new long[0], new long[0]);
+
+        StringBuilder config = new StringBuilder();
+        int layers = tuner.bestGroups.length + 1;
+        config.append("# predicted epoch delay: ").append(tuner.bestEpochDelay).append(" ms\n");
+        config.append("LAYERS ").append(layers).append('\n');
+        config.append("init.overlayInit.groups ").append(join(tuner.bestGroups)).append(",1\n");
+        config.append("init.overlayInit.placement ").append(tuner.quantilePlacement ? "quantile" : "medoid").append('\n');
+        int[] ratios = new int[layers];
+        Arrays.fill(ratios, 1);
+        config.append("protocol.learningProtocol.ratios ").append(join(ratios)).append('\n');
+        System.err.println("ETreeTuner: " + tuner.evaluated + " configurations, time: "
+                + (System.currentTimeMillis() - start) + " ms");
+        System.out.print(config);
+
+        String out = Configuration.getString(PREFIX + ".out", null);
+        if (out != null) {
+            try {
+                FileWriter writer = new FileWriter(out);
+                writer.write(config.toString());
+                writer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Tries every group count for the layer of the given nodes and recurses into the layer
+     * of their aggregators, the configuration is complete when a layer has a single group.
+     *
+     * @param nodeIds nodes of the current layer
+     * @param groups group counts of the layers below
+     * @param up upward delay of the layers below
+     * @param down downward delay of the layers below
+     */
+    private void search(ArrayList<Integer> nodeIds, int[] groups, long[] up, long[] down) {
+        int layer = groups.length;
+        tryGroups(nodeIds, groups, up, down, 1);
+        // the top layer holds the root alone, so maxLayers - 1 layers can be partitioned
+        if (layer + 2 >= maxLayers) return;
+        for (int k : candidates) {
+            if (k > 1 && k < nodeIds.size()) {
+                tryGroups(nodeIds, groups, up, down, k);
+            }
+        }
+    }
+
+    private void tryGroups(ArrayList<Integer> nodeIds, int[] groups, long[] up, long[] down, int k) {
+        ArrayList<ArrayList<Integer>> res;
+        if (restarts > 0) {
+            res = TopoUtil.getGraphPartitionResult(minDelayMatrix, nodeIds, recvPercent, k, restarts, patience);
+        } else {
+            res = TopoUtil.getGraphPartitionResult(minDelayMatrix, nodeIds, k);
+        }
+        if (quantilePlacement) {
+            TopoUtil.placeAggregators(minDelayMatrix, res, recvPercent);
+        }
+
+        long layerUp = 0;
+        long layerDown = 0;
+        ArrayList<Integer> aggregatorIds = new ArrayList<>(k);
+        for (ArrayList<Integer> group : res) {
+            int aggregatorId = group.get(group.size() - 1);
+            aggregatorIds.add(aggregatorId);
+            long delay = TopoUtil.aggregatorDelay(minDelayMatrix, group, recvPercent);
+            if (modelSize > 0) {
+                // every child pushes one model, the aggregator takes recvPercent of them one after the other
+                int received = TopoUtil.selectedCount(group.size() - 1, recvPercent);
+                delay += (long) Math.ceil(modelSize / uplink) + (long) Math.ceil(received * modelSize / downlink);
+            }
+            layerUp = Math.max(layerUp, delay);
+            // the model goes down to the children selected like in the protocol
+            int count = group.size() - 1;
+            int[] children = new int[count];
+            for (int i = 0; i < count; i++) children[i] = group.get(i);
+            int num = TopoUtil.selectedCount(count, recvPercent);
+            Utils.randomArray(num, children, count);
+            layerDown = Math.max(layerDown, TopoUtil.maxDelay(minDelayMatrix, aggregatorId, children, count - num, count));
+        }
+
+        int[] nextGroups = Arrays.copyOf(groups, groups.length + 1);
+        nextGroups[groups.length] = k;
+        long[] nextUp = Arrays.copyOf(up, up.length + 1);
+        nextUp[up.length] = layerUp;
+        long[] nextDown = Arrays.copyOf(down, down.length + 1);
+        nextDown[down.length] = layerDown;
+
+        if (k == 1) {
+            evaluate(nextGroups, nextUp, nextDown);
+        } else {
+            search(aggregatorIds, nextGroups, nextUp, nextDown);
+        }
+    }
+
+    private void evaluate(int[] groups, long[] up, long[] down) {
+        long epochDelay = 0;
+        for (int layer = 0; layer < groups.length; layer++) {
+            epochDelay += up[layer] + down[layer];
+        }
+        evaluated++;
+        System.err.println("ETreeTuner: layers " + (groups.length + 1) + ", groups " + join(groups) + ",1"
+                + ", up " + join(up) + ", down " + join(down) + ", epoch delay: " + epochDelay + " ms");
+        // ties go to the shallower tree, which is found first
+        if (epochDelay < bestEpochDelay) {
+            bestEpochDelay = epochDelay;
+            bestGroups = groups;
+        }
+    }
+
+    private static String join(int[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(values[i]);
+        }
+        return sb.toString();
+    }
+
+    private static String join(long[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append('+');
+            sb.append(values[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -19,7 +19,7 @@ public class FedLogicalTopology extends WireGraph {
     private final double recvPercent;
 
     /**@hidden */
-    private int[][] graph;
+    private DelayOracle delayOracle;
 
     public FedLogicalTopology(String prefix) {
         super(prefix);
@@ -27,7 +27,7 @@ public class FedLogicalTopology extends WireGraph {
         recvPercent = Configuration.getDouble(prefix + "." + PAR_RECVPERCENT);
 
         // gets physical network topology
-        graph = TopoUtil.getGraph(Network.size(), topoFilePath);
+        delayOracle = DelayOracle.getInstance(topoFilePath);
     }
 
     @Override
@@ -36,7 +36,7 @@ public class FedLogicalTopology extends WireGraph {
             for (int i = 0; i < Network.size(); i++) add(i);
         }};
 
-        int masterId = TopoUtil.findParameterServerId(graph, nodeIdList, recvPercent);
+        int masterId = TopoUtil.findParameterServerId(delayOracle.getMinDelayMatrix(), nodeIdList, recvPercent);
         // set FederatedLearningProtocol's masterId
         FederatedLearningProtocol.setMasterID(masterId);
     }
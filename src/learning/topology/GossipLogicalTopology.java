@@ -13,23 +13,22 @@ public class GossipLogicalTopology extends WireGraph {
     private final String topoFilePath;
 
     /**@hidden */
-    private int[][] graph;
+    private CSRGraph graph;
 
     public GossipLogicalTopology(String prefix) {
         super(prefix);
         topoFilePath = Configuration.getString("TOPO_FILEPATH");
-        graph = TopoUtil.getGraph(Network.size(), topoFilePath);
+        graph = DelayOracle.getInstance(topoFilePath).getGraph();
     }
 
     @Override
     public void wire(Graph g) {
-        int n = graph.length;
+        int n = graph.size();
         for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                if (i != j && graph[i][j] != Integer.MAX_VALUE) {
-                    g.setEdge(i, j);
-                    g.setEdge(j, i);
-                }
+            for (int pos = graph.rowStart(i); pos < graph.rowEnd(i); pos++) {
+                int j = graph.target(pos);
+                g.setEdge(i, j);
+                g.setEdge(j, i);
             }
         }
     }
@@ -0,0 +1,226 @@
+package learning.topology;
+
+import learning.utils.Parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * K-medoids partitioning of a set of nodes by their minimum delays.
+ * The medoids minimise the total delay of every node to its nearest medoid.
+ * The search uses the eager swap of FasterPAM (Schubert and Rousseeuw):
+ * for every node that is not a medoid, the change of the total delay for replacing
+ * each medoid with it is computed in one pass over the nodes from the nearest
+ * and second nearest medoid delays, and the best improving swap is applied at once.
+ * The search stops when a whole round over the nodes finds no improving swap.<br/>
+ * Everything is kept in primitive arrays indexed by the position of a node
+ * in the partitioned list, the assignment to the medoids runs in parallel.
+ * An instance is not thread safe.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class KMedoids {
+    private final DelayMatrix minDelayMatrix;
+    private final int[] nodeIds;
+    private final int n;
+    private final int k;
+
+    /* positions of the medoids in nodeIds */
+    private final int[] medoids;
+    private final boolean[] isMedoid;
+    /* index of the nearest and the second nearest medoid of every node, and their delays */
+    private final int[] nearest;
+    private final int[] dNearest;
+    private final int[] dSecond;
+    /* change of the total delay if a medoid is removed without a replacement */
+    private final long[] removalLoss;
+    private final long[] delta;
+
+    private int swaps;
+
+    /**
+     * @param minDelayMatrix all-pairs minimum delays
+     * @param nodeIds nodes to partition
+     * @param k number of clusters
+     */
+    public KMedoids(DelayMatrix minDelayMatrix, int[] nodeIds, int k) {
+        if (k < 1 || k > nodeIds.length) {
+            throw new RuntimeException("Exception occured in KMedoids: can not partition "
+                    + nodeIds.length + " nodes into " + k + " groups");
+        }
+        this.minDelayMatrix = minDelayMatrix;
+        this.nodeIds = nodeIds;
+        this.n = nodeIds.length;
+        this.k = k;
+        medoids = new int[k];
+        isMedoid = new boolean[n];
+        nearest = new int[n];
+        dNearest = new int[n];
+        dSecond = new int[n];
+        removalLoss = new long[k];
+        delta = new long[k];
+    }
+
+    /**
+     * Picks k distinct random medoids, drawing from r exactly like the former
+     * partitioning did (redraw until an unused node is found).
+     *
+     * @param r random source
+     */
+    public void initRandom(Random r) {
+        Arrays.fill(isMedoid, false);
+        for (int i = 0; i < k; i++) {
+            int randomNodeIndex = r.nextInt(n);
+            while (isMedoid[randomNodeIndex]) {
+                randomNodeIndex = r.nextInt(n);
+            }
+            isMedoid[randomNodeIndex] = true;
+            medoids[i] = randomNodeIndex;
+        }
+        assign();
+    }
+
+    /**
+     * Runs the swap search until no swap improves the total delay.
+     *
+     * @return number of swaps
+     */
+    public int run() {
+        swaps = 0;
+        int candidate = 0;
+        int sinceLastSwap = 0;
+        while (sinceLastSwap < n) {
+            if (!isMedoid[candidate] && trySwap(candidate)) {
+                sinceLastSwap = 0;
+            } else {
+                sinceLastSwap++;
+            }
+            candidate = candidate + 1 == n ? 0 : candidate + 1;
+        }
+        return swaps;
+    }
+
+    /**
+     * Computes the best medoid to be replaced by the candidate and applies the swap if it helps.
+     */
+    private boolean trySwap(int candidate) {
+        System.arraycopy(removalLoss, 0, delta, 0, k);
+        long gain = 0;
+        int candidateId = nodeIds[candidate];
+        for (int o = 0; o < n; o++) {
+            int delay = minDelayMatrix.getDelay(candidateId, nodeIds[o]);
+            if (delay < dNearest[o]) {
+                // o moves to the candidate, removing its medoid does not cost anything any more
+                gain += (long) delay - dNearest[o];
+                delta[nearest[o]] += (long) dNearest[o] - dSecond[o];
+            } else if (delay < dSecond[o]) {
+                // o moves to the candidate instead of its second nearest medoid
+                delta[nearest[o]] += (long) delay - dSecond[o];
+            }
+        }
+        int best = 0;
+        for (int i = 1; i < k; i++) {
+            if (delta[i] < delta[best]) best = i;
+        }
+        if (delta[best] + gain >= 0) return false;
+
+        isMedoid[medoids[best]] = false;
+        isMedoid[candidate] = true;
+        medoids[best] = candidate;
+        swaps++;
+        assign();
+        return true;
+    }
+
+    /**
+     * Finds the nearest and second nearest medoid of every node in parallel
+     * and recomputes the removal losses. A medoid always belongs to its own cluster,
+     * other ties go to the medoid that comes first.
+     */
+    private void assign() {
+        Parallel.forRange(0, n, new Parallel.RangeTask() {
+            @Override
+            public void run(int from, int to) {
+                for (int o = from; o < to; o++) {
+                    int best = -1;
+                    int bestDelay = Integer.MAX_VALUE;
+                    int secondDelay = Integer.MAX_VALUE;
+                    for (int i = 0; i < k; i++) {
+                        int delay = medoids[i] == o ? 0 : minDelayMatrix.getDelay(nodeIds[medoids[i]], nodeIds[o]);
+                        if (best < 0 || delay < bestDelay || (delay == bestDelay && medoids[i] == o)) {
+                            if (best >= 0) secondDelay = bestDelay;
+                            best = i;
+                            bestDelay = delay;
+                        } else if (delay < secondDelay) {
+                            secondDelay = delay;
+                        }
+                    }
+                    nearest[o] = best;
+                    dNearest[o] = bestDelay;
+                    dSecond[o] = secondDelay;
+                }
+            }
+        });
+        Arrays.fill(removalLoss, 0);
+        for (int o = 0; o < n; o++) {
+            removalLoss[nearest[o]] += (long) dSecond[o] - dNearest[o];
+        }
+    }
+
+    /**
+     * @return total delay of every node to its nearest medoid
+     */
+    public long getTotalDelay() {
+        long total = 0;
+        for (int o = 0; o < n; o++) total += dNearest[o];
+        return total;
+    }
+
+    /**
+     * @return number of swaps of the last run
+     */
+    public int getSwaps() {
+        return swaps;
+    }
+
+    /**
+     * @return ids of the medoid nodes, in cluster order
+     */
+    public int[] getMedoidIds() {
+        int[] ids = new int[k];
+        for (int i = 0; i < k; i++) ids[i] = nodeIds[medoids[i]];
+        return ids;
+    }
+
+    /**
+     * @return cluster of every node, in the order of the partitioned list
+     */
+    public int[] getAssignment() {
+        return nearest.clone();
+    }
+
+    /**
+     * Returns the clusters in the format of {@link TopoUtil#getGraphPartitionResult}:
+     * the members of each cluster (the medoid included) in list order,
+     * followed by the medoid once more as the last element.
+     *
+     * @return clusters
+     */
+    public ArrayList<ArrayList<Integer>> getClusterList() {
+        int[] sizes = new int[k];
+        for (int o = 0; o < n; o++) sizes[nearest[o]]++;
+        ArrayList<ArrayList<Integer>> clusterList = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            clusterList.add(new ArrayList<Integer>(sizes[i] + 1));
+        }
+        for (int o = 0; o < n; o++) {
+            clusterList.get(nearest[o]).add(nodeIds[o]);
+        }
+        for (int i = 0; i < k; i++) {
+            clusterList.get(i).add(nodeIds[medoids[i]]);
+        }
+        return clusterList;
+    }
+}
@@ -0,0 +1,155 @@
+package learning.topology;
+
+import learning.utils.Parallel;
+import peersim.config.Configuration;
+import peersim.core.CommonState;
+import peersim.core.Network;
+import peersim.dynamics.WireGraph;
+import peersim.graph.Graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Gossip overlay whose links prefer close nodes.
+ * Every node picks k neighbours without replacement, node j with weight 1 / (1 + delay(i, j))^alpha
+ * on the minimum delays of the physical topology, and a fraction of the picks are uniform random
+ * long links as in a small-world network. The picks are links from the node, the link back is added
+ * only while the other node has less than maxDegree neighbours, so every node has between k and
+ * max(k, maxDegree) neighbours.<br/>
+ * The nodes pick in parallel, each from its own random stream derived from one draw of CommonState.r,
+ * so the overlay does not depend on the number of threads.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class LatencyGossipTopology extends WireGraph {
+    private final String topoFilePath;
+
+    /**
+     * Number of neighbours picked by every node.
+     */
+    private static final String PAR_K = "k";
+    private final int k;
+
+    /**
+     * Exponent of the delay in the weights, 2 by default. 0 picks uniformly.
+     */
+    private static final String PAR_ALPHA = "alpha";
+    private final double alpha;
+
+    /**
+     * Fraction of the picks that are uniform random long links, 0.1 by default.
+     */
+    private static final String PAR_RANDOM = "random";
+    private final double random;
+
+    /**
+     * Largest degree that links back may grow a node to, 2k by default.
+     */
+    private static final String PAR_MAXDEGREE = "maxDegree";
+    private final int maxDegree;
+
+    /**@hidden */
+    private DelayOracle delayOracle;
+
+    public LatencyGossipTopology(String prefix) {
+        super(prefix);
+        topoFilePath = Configuration.getString("TOPO_FILEPATH");
+        k = Configuration.getInt(prefix + "." + PAR_K);
+        alpha = Configuration.getDouble(prefix + "." + PAR_ALPHA, 2.0);
+        random = Configuration.getDouble(prefix + "." + PAR_RANDOM, 0.1);
+        maxDegree = Configuration.getInt(prefix + "." + PAR_MAXDEGREE, 2 * k);
+        if (k < 1) {
+            throw new RuntimeException("Exception occured in LatencyGossipTopology: k must be at least 1");
+        }
+        delayOracle = DelayOracle.getInstance(topoFilePath);
+    }
+
+    @Override
+    public void wire(Graph g) {
+        final int n = Network.size();
+        final int degree = Math.min(k, n - 1);
+        final int longLinks = (int) Math.round(degree * random);
+        final DelayMatrix minDelayMatrix = delayOracle.getMinDelayMatrix();
+        final long baseSeed = CommonState.r.nextLong();
+        final int[][] picks = new int[n][];
+
+        Parallel.forRange(0, n, new Parallel.RangeTask() {
+            @Override
+            public void run(int from, int to) {
+                double[] keys = new double[n];
+                for (int i = from; i < to; i++) {
+                    Random r = new Random(nodeSeed(baseSeed, i));
+                    picks[i] = pick(minDelayMatrix, i, degree, longLinks, r, keys);
+                }
+            }
+        });
+
+        for (int i = 0; i < n; i++) {
+            for (int j : picks[i]) {
+                g.setEdge(i, j);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j : picks[i]) {
+                if (g.degree(j) < maxDegree) g.setEdge(j, i);
+            }
+        }
+    }
+
+    /**
+     * Picks the neighbours of node i: the short links by weighted sampling without replacement,
+     * i.e. the largest keys u^(1 / weight), then the long links uniformly among the rest.
+     */
+    private int[] pick(DelayMatrix minDelayMatrix, int i, int degree, int longLinks, Random r, double[] keys) {
+        int n = keys.length;
+        int shortLinks = degree - longLinks;
+        for (int j = 0; j < n; j++) {
+            int delay = minDelayMatrix.getDelay(i, j);
+            if (j == i || delay == Integer.MAX_VALUE) {
+                keys[j] = Double.NEGATIVE_INFINITY;
+                continue;
+            }
+            // log(u) / weight keeps the order of u^(1 / weight) without underflow
+            keys[j] = Math.log(r.nextDouble()) * Math.pow(1.0 + delay, alpha);
+        }
+
+        int[] selected = new int[degree];
+        int count = 0;
+        for (; count < shortLinks; count++) {
+            int best = -1;
+            for (int j = 0; j < n; j++) {
+                if (keys[j] != Double.NEGATIVE_INFINITY && (best < 0 || keys[j] > keys[best])) best = j;
+            }
+            if (best < 0) break;
+            selected[count] = best;
+            keys[best] = Double.NEGATIVE_INFINITY;
+        }
+        int tries = 0;
+        while (count < degree && tries < 16 * n) {
+            int j = r.nextInt(n);
+            tries++;
+            if (j == i || contains(selected, count, j) || minDelayMatrix.getDelay(i, j) == Integer.MAX_VALUE) continue;
+            selected[count++] = j;
+        }
+        return count == degree ? selected : Arrays.copyOf(selected, count);
+    }
+
+    private static boolean contains(int[] values, int len, int value) {
+        for (int i = 0; i < len; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * SplitMix64 mix of the base seed and the node index.
+     */
+    private static long nodeSeed(long baseSeed, int node) {
+        long z = baseSeed + (node + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,146 @@
+package learning.topology;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Minimum delays computed row by row on demand.
+ * The first lookup of a source runs a single source Dijkstra search and the row is kept
+ * in a cache of at most maxRows rows, so memory grows with maxRows * n instead of n^2.
+ * Since the delays are symmetric, a lookup of (from, to) is answered from the row of to
+ * if only that one is cached. When the cache is full, a row that was not used since the clock
+ * hand last passed it is evicted (CLOCK, an approximation of least recently used).<br/>
+ * Lookups may come from several threads: a cached row is read without locking,
+ * only a miss takes the lock of the matrix to insert the row, and the searches run
+ * outside the lock with one search engine per thread.<br/>
+ * Users that read every row again and again, like the swap search of {@link KMedoids},
+ * need maxRows at least the number of nodes they read, otherwise every pass computes the rows again.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class LazyDelayMatrix implements DelayMatrix {
+    private final CSRGraph graph;
+    private final int maxRows;
+    /* cached row of every source, null if it is not cached */
+    private final AtomicReferenceArray<int[]> rows;
+    /* sources in the slots of the clock, and whether the row was used since the hand passed it */
+    private final int[] slotSource;
+    private final boolean[] used;
+    private int cached;
+    private int hand;
+    private final ThreadLocal<ShortestPaths> engines;
+
+    public LazyDelayMatrix(final CSRGraph graph, final int maxRows) {
+        if (maxRows < 1) {
+            throw new RuntimeException("Exception occured in LazyDelayMatrix: at least one row must be cached");
+        }
+        this.graph = graph;
+        this.maxRows = Math.min(maxRows, Math.max(graph.size(), 1));
+        this.rows = new AtomicReferenceArray<>(graph.size());
+        this.slotSource = new int[this.maxRows];
+        this.used = new boolean[graph.size()];
+        this.engines = new ThreadLocal<ShortestPaths>() {
+            @Override
+            protected ShortestPaths initialValue() {
+                return new ShortestPaths(graph);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return graph.size();
+    }
+
+    @Override
+    public int getDelay(int from, int to) {
+        if (from == to) return 0;
+        int[] row = rows.get(from);
+        if (row != null) {
+            // a lost update only makes the row look older
+            used[from] = true;
+            return row[to];
+        }
+        row = rows.get(to);
+        if (row != null) {
+            used[to] = true;
+            return row[from];
+        }
+        return getRow(from)[to];
+    }
+
+    /**
+     * Returns the minimum delays from the given source to every node,
+     * computing the row if it is not cached. The returned row must not be modified.
+     *
+     * @param source node index
+     * @return delay row
+     */
+    public int[] getRow(int source) {
+        int[] row = rows.get(source);
+        if (row != null) {
+            used[source] = true;
+            return row;
+        }
+        row = engines.get().singleSource(source);
+        synchronized (this) {
+            // another thread may have computed it meanwhile
+            int[] other = rows.get(source);
+            if (other != null) return other;
+            int slot;
+            if (cached < maxRows) {
+                slot = cached++;
+            } else {
+                while (used[slotSource[hand]]) {
+                    used[slotSource[hand]] = false;
+                    hand = hand + 1 == maxRows ? 0 : hand + 1;
+                }
+                slot = hand;
+                rows.set(slotSource[slot], null);
+                hand = hand + 1 == maxRows ? 0 : hand + 1;
+            }
+            slotSource[slot] = source;
+            used[source] = true;
+            rows.set(source, row);
+        }
+        return row;
+    }
+
+    /**
+     * Replaces the cached row of the source and the source entry of every other cached row.
+     */
+    @Override
+    public synchronized void setRow(int source, int[] row) {
+        for (int i = 0; i < cached; i++) {
+            int s = slotSource[i];
+            if (s == source) {
+                rows.set(source, row.clone());
+            } else {
+                rows.get(s)[source] = row[s];
+            }
+        }
+    }
+
+    /**
+     * Drops every cached row, they are computed again when they are needed.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < cached; i++) rows.set(slotSource[i], null);
+        Arrays.fill(used, false);
+        cached = 0;
+        hand = 0;
+    }
+
+    @Override
+    public synchronized long memoryBytes() {
+        return 4L * graph.size() * cached + 9L * graph.size();
+    }
+
+    /**
+     * @return maximal number of cached rows
+     */
+    public int getMaxRows() {
+        return maxRows;
+    }
+}
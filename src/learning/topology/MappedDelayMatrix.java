@@ -0,0 +1,260 @@
+package learning.topology;
+
+import learning.utils.Parallel;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Minimum delays read straight from a memory mapped cache file.
+ * The cache file is named by the SHA-256 hash of the topology file content and the
+ * number of nodes, so a changed topology never hits an old cache. A missing, truncated
+ * or otherwise invalid cache file is rebuilt and atomically replaced.<br/>
+ * File layout (little endian): a 64 byte header (magic, version, n, reserved,
+ * 32 byte topology hash) followed by the n x n delays row by row.
+ * Rows are mapped in segments of a power of two rows, since one mapping
+ * cannot be larger than 2GB. The first {@link #setRow} remaps the file privately,
+ * so changed delays are kept in memory and the cache file itself is never modified.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class MappedDelayMatrix implements DelayMatrix {
+    private static final int MAGIC = 0x594c4445;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int HASH_OFFSET = 16;
+
+    private final int n;
+    private final int rowShift;
+    private final int rowMask;
+    private final MappedByteBuffer[] segments;
+    private final File file;
+    private boolean rebuilt;
+    private boolean writable;
+
+    private MappedDelayMatrix(File file, FileChannel channel, int n, FileChannel.MapMode mode) throws IOException {
+        this.file = file;
+        this.n = n;
+        this.rowShift = rowShift(n);
+        this.rowMask = (1 << rowShift) - 1;
+        int rowsPerSegment = 1 << rowShift;
+        segments = new MappedByteBuffer[(n + rowsPerSegment - 1) >>> rowShift];
+        map(channel, mode);
+        writable = mode != FileChannel.MapMode.READ_ONLY;
+    }
+
+    private void map(FileChannel channel, FileChannel.MapMode mode) throws IOException {
+        int rowsPerSegment = 1 << rowShift;
+        for (int i = 0; i < segments.length; i++) {
+            int rows = Math.min(rowsPerSegment, n - i * rowsPerSegment);
+            long position = HEADER_BYTES + 4L * n * ((long) i * rowsPerSegment);
+            segments[i] = channel.map(mode, position, 4L * n * rows);
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Maps the cached delays of the given topology, building the cache file first
+     * if it is missing or stale.
+     *
+     * @param graph physical topology
+     * @param topoFilePath topology file the graph was loaded from
+     * @param cacheDir directory of the cache files
+     * @return mapped delays
+     */
+    public static MappedDelayMatrix openOrBuild(CSRGraph graph, String topoFilePath, File cacheDir) {
+        try {
+            byte[] hash = hashFile(topoFilePath);
+            File file = new File(cacheDir, toHex(hash) + "-" + graph.size() + ".delay");
+            MappedDelayMatrix matrix = open(file, graph.size(), hash);
+            if (matrix == null) {
+                build(graph, file, hash);
+                matrix = open(file, graph.size(), hash);
+                if (matrix == null) {
+                    throw new IOException("The rebuilt delay cache " + file + " can not be opened");
+                }
+                matrix.rebuilt = true;
+            }
+            return matrix;
+        } catch (IOException e) {
+            throw new RuntimeException("Exception occured in the delay cache of " + topoFilePath + ": " + e);
+        }
+    }
+
+    /**
+     * Maps an existing cache file read-only.
+     *
+     * @return mapped delays or null if the file is missing or does not belong to the given topology
+     */
+    private static MappedDelayMatrix open(File file, int n, byte[] hash) throws IOException {
+        if (!file.isFile() || file.length() != HEADER_BYTES + 4L * n * n) return null;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC
+                    || header.getInt(4) != VERSION || header.getInt(8) != n) {
+                return null;
+            }
+            byte[] stored = new byte[hash.length];
+            header.position(HASH_OFFSET);
+            header.get(stored);
+            if (!Arrays.equals(stored, hash)) return null;
+            return new MappedDelayMatrix(file, channel, n, FileChannel.MapMode.READ_ONLY);
+        } finally {
+            // the mappings stay valid after the channel is closed
+            raf.close();
+        }
+    }
+
+    /**
+     * Computes the all-pairs minimum delays in parallel straight into a temporary mapped file,
+     * then moves it to its final name. The header is written last,
+     * so a file left behind by an interrupted build is never accepted.
+     */
+    private static void build(final CSRGraph graph, File file, byte[] hash) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can not create directory " + dir);
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        final int n = graph.size();
+        RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+        boolean written = false;
+        try {
+            raf.setLength(HEADER_BYTES + 4L * n * n);
+            FileChannel channel = raf.getChannel();
+            final MappedDelayMatrix target = new MappedDelayMatrix(tmp, channel, n, FileChannel.MapMode.READ_WRITE);
+            Parallel.forRange(0, n, new Parallel.RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    ShortestPaths engine = new ShortestPaths(graph);
+                    int[] row = new int[n];
+                    for (int nodeIndex = from; nodeIndex < to; nodeIndex++) {
+                        engine.singleSource(nodeIndex, row);
+                        ByteBuffer segment = target.segments[nodeIndex >>> target.rowShift].duplicate();
+                        segment.order(ByteOrder.LITTLE_ENDIAN);
+                        segment.position(4 * n * (nodeIndex & target.rowMask));
+                        segment.asIntBuffer().put(row);
+                    }
+                }
+            });
+            for (MappedByteBuffer segment : target.segments) segment.force();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, n);
+            header.position(HASH_OFFSET);
+            header.put(hash);
+            header.position(0);
+            while (header.hasRemaining()) channel.write(header, header.position());
+            channel.force(true);
+            written = true;
+        } finally {
+            raf.close();
+            if (!written) tmp.delete();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the SHA-256 hash of the content of the given file.
+     *
+     * @param filePath file to hash
+     * @return hash
+     */
+    public static byte[] hashFile(String filePath) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            FileInputStream in = new FileInputStream(filePath);
+            try {
+                byte[] buffer = new byte[1 << 16];
+                int len;
+                while ((len = in.read(buffer)) > 0) digest.update(buffer, 0, len);
+            } finally {
+                in.close();
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    /**
+     * @return log2 of the largest power of two rows whose mapping still fits into 2GB
+     */
+    private static int rowShift(int n) {
+        int shift = 30;
+        while (shift > 0 && (4L * n << shift) > Integer.MAX_VALUE) shift--;
+        return shift;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int getDelay(int from, int to) {
+        return segments[from >>> rowShift].getInt(((from & rowMask) * n + to) << 2);
+    }
+
+    @Override
+    public void setRow(int source, int[] row) {
+        if (!writable) {
+            try {
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    map(raf.getChannel(), FileChannel.MapMode.PRIVATE);
+                } finally {
+                    raf.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Exception occured in remapping the delay cache " + file + ": " + e);
+            }
+            writable = true;
+        }
+        for (int j = 0; j < n; j++) {
+            segments[source >>> rowShift].putInt(((source & rowMask) * n + j) << 2, row[j]);
+            segments[j >>> rowShift].putInt(((j & rowMask) * n + source) << 2, row[j]);
+        }
+    }
+
+    @Override
+    public long memoryBytes() {
+        return 4L * n * n;
+    }
+
+    /**
+     * @return the mapped cache file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return true if the cache file was missing or stale and had to be rebuilt
+     */
+    public boolean isRebuilt() {
+        return rebuilt;
+    }
+}
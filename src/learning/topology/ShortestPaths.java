@@ -0,0 +1,125 @@
+package learning.topology;
+
+import learning.utils.Parallel;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra shortest path engine over a {@link CSRGraph}.
+ * It relaxes only the stored neighbours of a node and keeps its frontier in a
+ * primitive binary heap of (delay, node) pairs packed into longs, so a search
+ * does not allocate anything except the returned delay row.<br/>
+ * An instance holds the working arrays of one search, so it must not be shared
+ * between threads; {@link #allPairs(CSRGraph)} uses one instance per worker.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class ShortestPaths {
+    private final CSRGraph graph;
+    private final boolean[] vis;
+    private long[] heap;
+    private int heapSize;
+
+    public ShortestPaths(CSRGraph graph) {
+        this.graph = graph;
+        this.vis = new boolean[graph.size()];
+        this.heap = new long[Math.max(16, graph.size())];
+    }
+
+    /**
+     * Returns the minimum delay from start to every node,
+     * Integer.MAX_VALUE means that message can not from start to the node.
+     *
+     * @param start message from
+     * @return the minimum delays
+     */
+    public int[] singleSource(int start) {
+        int[] dis = new int[graph.size()];
+        singleSource(start, dis);
+        return dis;
+    }
+
+    /**
+     * Fills dis with the minimum delay from start to every node.
+     *
+     * @param start message from
+     * @param dis output row of length n
+     */
+    public void singleSource(int start, int[] dis) {
+        Arrays.fill(dis, Integer.MAX_VALUE);
+        Arrays.fill(vis, false);
+        heapSize = 0;
+
+        dis[start] = 0;
+        push(start, 0);
+        while (heapSize > 0) {
+            long top = pop();
+            int u = (int) top;
+            if (vis[u] || dis[u] < (int) (top >>> 32)) continue;
+            vis[u] = true;
+
+            for (int pos = graph.rowStart(u); pos < graph.rowEnd(u); pos++) {
+                int to = graph.target(pos);
+                int delay = graph.delay(pos);
+                // failed link
+                if (delay == Integer.MAX_VALUE) continue;
+
+                if (!vis[to] && dis[to] > dis[u] + delay) {
+                    dis[to] = dis[u] + delay;
+                    push(to, dis[to]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the all-pairs minimum delay matrix by running the single source
+     * searches in parallel on the fork/join pool.
+     *
+     * @param graph physical topology
+     * @return minimum delay matrix
+     */
+    public static int[][] allPairs(final CSRGraph graph) {
+        final int[][] minDelayMatrix = new int[graph.size()][];
+        Parallel.forRange(0, graph.size(), new Parallel.RangeTask() {
+            @Override
+            public void run(int from, int to) {
+                ShortestPaths engine = new ShortestPaths(graph);
+                for (int nodeIndex = from; nodeIndex < to; nodeIndex++) {
+                    minDelayMatrix[nodeIndex] = engine.singleSource(nodeIndex);
+                }
+            }
+        });
+        return minDelayMatrix;
+    }
+
+    private void push(int node, int delay) {
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize << 1);
+        long key = ((long) delay << 32) | node;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= key) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = key;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+}
@@ -1,10 +1,8 @@
 package learning.topology;
 
+import learning.utils.Parallel;
 import peersim.core.CommonState;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.*;
 
 /**
@@ -12,317 +10,406 @@ import java.util.*;
  * @date 17/2/2020
  */
 public class TopoUtil {
+    /* number of partitioning restarts that run in parallel before their results are compared */
+    private static final int RESTART_BATCH = 64;
 
     /**
-     * Returns the adjacency matrix of the network,
-     * If value is Integer.MAX_VALUE, then there is no edge between two nodes
-     * else it represents the delay between two nodes.
+     * Returns the adjacency of the network in compressed sparse row form,
+     * the value stored for an edge represents the delay between two nodes.
      *
      * Notice that the index of node starts with 0.
      *
-     * @return Adjacency matrix
+     * @return Sparse adjacency of the network
      */
-    public static int[][] getGraph(int n, String filePath) {
-        int[][] graph = new int[n][n];
+    public static CSRGraph getGraph(int n, String filePath) {
+        return CSRGraph.load(n, filePath);
+    }
 
-        for (int i = 0; i < n; i++)
-            for (int j = 0; j < n; j++)
-                graph[i][j] = i == j ? 0 : Integer.MAX_VALUE;
+    /**
+     * Returns the shortest path from node to node.
+     * The single source searches run in parallel, see {@link ShortestPaths#allPairs(CSRGraph)}.
+     * @param graph
+     * @return
+     */
+    public static int[][] generateMinDelayMatrix(CSRGraph graph) {
+        return ShortestPaths.allPairs(graph);
+    }
 
-        try {
-            FileReader fr = new FileReader(filePath);
-            BufferedReader bf = new BufferedReader(fr);
-            String str;
+    /**
+     * Returns the node whose delay to the other nodes at the aggregation ratio is the lowest:
+     * for every candidate the m-th largest delay to the other nodes is taken, with
+     * m = round(|nodeIdList| * (1 - aggregationRatio)) + 1, or the smallest delay if there are fewer.
+     * Ties go to the node that comes first in the list.
+     *
+     * @param minDelayMatrix all-pairs minimum delays, see {@link DelayOracle}
+     * @param nodeIdList candidate nodes
+     * @param aggregationRatio percentage of the model to begin aggregating
+     * @return id of the parameter server
+     */
+    public static int findParameterServerId(DelayMatrix minDelayMatrix, ArrayList<Integer> nodeIdList, double aggregationRatio) {
+        return findParameterServerIds(minDelayMatrix, nodeIdList, aggregationRatio, 1).get(0);
+    }
 
-            while ((str = bf.readLine()) != null) {
-                String[] temp = str.split(" ");
-                int from = Integer.parseInt(temp[0])-1;
-                int to = Integer.parseInt(temp[1])-1;
-                graph[from][to] = Integer.parseInt(temp[2]);
-                graph[to][from] = Integer.parseInt(temp[2]);
+    /**
+     * Places several parameter servers among the nodes, greedily like the k-center problem.
+     * Every node that is not a server is served by its nearest server, and the objective is
+     * the delay at the aggregation ratio among these delays, defined as in
+     * {@link #findParameterServerId(DelayMatrix, ArrayList, double)}. The servers are added one by one,
+     * each time picking the node that lowers the objective the most, so the first server is the one
+     * findParameterServerId returns.<br/>
+     * The candidates are scanned in parallel, each with a primitive quickselect over its delays.
+     *
+     * @param minDelayMatrix all-pairs minimum delays, see {@link DelayOracle}
+     * @param nodeIdList candidate nodes
+     * @param aggregationRatio percentage of the model to begin aggregating
+     * @param count number of parameter servers
+     * @return ids of the parameter servers in the order they were placed
+     */
+    public static ArrayList<Integer> findParameterServerIds(final DelayMatrix minDelayMatrix, ArrayList<Integer> nodeIdList,
+                                                            double aggregationRatio, int count) {
+        final int[] nodeIds = toArray(nodeIdList);
+        final int n = nodeIds.length;
+        if (count < 1 || count > n) {
+            throw new RuntimeException("Exception occured in findParameterServerIds: can not place "
+                    + count + " servers among " + n + " nodes");
+        }
+        final int rank = (int) Math.round(n * (1 - aggregationRatio)) + 1;
+        final int[] nearestDelay = new int[n];
+        Arrays.fill(nearestDelay, Integer.MAX_VALUE);
+        final boolean[] isServer = new boolean[n];
+        final int[] theDelaysAtAggregationRatio = new int[n];
+
+        ArrayList<Integer> serverIds = new ArrayList<>(count);
+        for (int s = 0; s < count; s++) {
+            Parallel.forRange(0, n, new Parallel.RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    int[] delays = new int[n];
+                    for (int c = from; c < to; c++) {
+                        if (isServer[c]) continue;
+                        int len = 0;
+                        for (int o = 0; o < n; o++) {
+                            if (o == c || isServer[o]) continue;
+                            delays[len++] = Math.min(nearestDelay[o], minDelayMatrix.getDelay(nodeIds[c], nodeIds[o]));
+                        }
+                        theDelaysAtAggregationRatio[c] = len == 0 ? 0 : select(delays, len, len >= rank ? len - rank : 0);
+                    }
+                }
+            });
+            int selected = -1;
+            for (int c = 0; c < n; c++) {
+                if (isServer[c]) continue;
+                if (selected < 0 || theDelaysAtAggregationRatio[c] < theDelaysAtAggregationRatio[selected]) {
+                    selected = c;
+                }
+            }
+            isServer[selected] = true;
+            serverIds.add(nodeIds[selected]);
+            for (int o = 0; o < n; o++) {
+                nearestDelay[o] = Math.min(nearestDelay[o], minDelayMatrix.getDelay(nodeIds[selected], nodeIds[o]));
             }
-            bf.close();
-            fr.close();
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        return graph;
+        return serverIds;
     }
 
     /**
-     * Returns the minimum delay from start(node index) to end(node index),
-     * if minDelay = Integet.MAX_VALUE, it means that message can not from start to end.
-     *
-     * Implemented by Dijkstra with heap
+     * Replaces the aggregator of every group by the member with the lowest delay at the aggregation ratio
+     * to the other members, see {@link #findParameterServerId(DelayMatrix, ArrayList, double)}.
+     * The groups are handled in parallel.
      *
-     * @param graph
-     * @param start message from
-     * @return the minimum delay
+     * @param minDelayMatrix all-pairs minimum delays
+     * @param groups the members of every group followed by its aggregator, the last element is replaced
+     * @param aggregationRatio percentage of the model to begin aggregating
+     * @return delay at the aggregation ratio of the new aggregator of every group
      */
-    private static int[] getSingelNodeMinDelay(int[][] graph, int start) {
-        class Edge implements Comparable<Edge>{
-            int to , cost;
-            Edge(int to_,int cost_){
-                to = to_;
-                cost = cost_;
-            }
+    public static int[] placeAggregators(final DelayMatrix minDelayMatrix, final ArrayList<ArrayList<Integer>> groups,
+                                         final double aggregationRatio) {
+        final int[] delays = new int[groups.size()];
+        Parallel.forRange(0, groups.size(), 1, new Parallel.RangeTask() {
             @Override
-            public int compareTo(Edge o) {
-                return this.cost - o.cost;
+            public void run(int from, int to) {
+                for (int g = from; g < to; g++) {
+                    ArrayList<Integer> group = groups.get(g);
+                    int last = group.size() - 1;
+                    ArrayList<Integer> members = new ArrayList<>(group.subList(0, last));
+                    group.set(last, findParameterServerId(minDelayMatrix, members, aggregationRatio));
+                    delays[g] = aggregatorDelay(minDelayMatrix, group, aggregationRatio);
+                }
             }
-        }
-
-        int n = graph.length;
-        boolean[] vis = new boolean[n];
-        int[] dis = new int[n];
-        // init dis
-        for (int i = 0; i < n; i++) dis[i] = Integer.MAX_VALUE;
-        Queue<Edge> que = new PriorityQueue<>();
-        que.add(new Edge(start, 0));
-        dis[start] = 0;
-        while (!que.isEmpty()) {
-            Edge top = que.poll();
-            int u = top.to;
+        });
+        return delays;
+    }
 
-            if (dis[u] < top.cost) continue;
-            if (vis[u]) continue;
+    /**
+     * Returns the delay at the aggregation ratio from the aggregator of the group to the other members,
+     * defined as in {@link #findParameterServerId(DelayMatrix, ArrayList, double)}.
+     *
+     * @param minDelayMatrix all-pairs minimum delays
+     * @param group the members followed by the aggregator, which is one of the members
+     * @param aggregationRatio percentage of the model to begin aggregating
+     * @return delay in milliseconds
+     */
+    public static int aggregatorDelay(DelayMatrix minDelayMatrix, ArrayList<Integer> group, double aggregationRatio) {
+        int n = group.size() - 1;
+        int rank = (int) Math.round(n * (1 - aggregationRatio)) + 1;
+        int aggregatorId = group.get(n);
+        int[] delays = new int[n];
+        int len = 0;
+        for (int o = 0; o < n; o++) {
+            if (group.get(o) == aggregatorId) continue;
+            delays[len++] = minDelayMatrix.getDelay(aggregatorId, group.get(o));
+        }
+        return len == 0 ? 0 : select(delays, len, len >= rank ? len - rank : 0);
+    }
 
-            vis[u] = true;
+    /**
+     * Returns the number of children an ETree aggregator waits for in an epoch.
+     *
+     * @param children number of children
+     * @param recvPercent percentage of the children to wait for
+     * @return number of selected children, at least one
+     */
+    public static int selectedCount(int children, double recvPercent) {
+        return Math.max((int) (children * recvPercent), 1);
+    }
 
-            for (int to = 0; to < n; to++) {
-                if (u != to && graph[u][to] != Integer.MAX_VALUE) {
-                    int delay = graph[u][to];
+    /**
+     * Returns the largest delay from the parent to the nodes ids[from..to),
+     * the nodes it can not reach are left out since they do not get the model.
+     *
+     * @param minDelayMatrix all-pairs minimum delays
+     * @param parent node index
+     * @param ids node indexes
+     * @param from first position
+     * @param to position after the last one
+     * @return delay in milliseconds, 0 if no node is reachable
+     */
+    public static int maxDelay(DelayMatrix minDelayMatrix, int parent, int[] ids, int from, int to) {
+        int max = 0;
+        for (int i = from; i < to; i++) {
+            int delay = minDelayMatrix.getDelay(parent, ids[i]);
+            if (delay != DelayMatrix.UNREACHABLE) max = Math.max(max, delay);
+        }
+        return max;
+    }
 
-                    if (!vis[to] && dis[to] > dis[u] + delay) {
-                        dis[to] = dis[u]+delay;
-                        que.add(new Edge(to, dis[to]));
-                    }
+    /**
+     * Returns the value that would be at position index if values[0..len) were sorted,
+     * the values are reordered.
+     */
+    private static int select(int[] values, int len, int index) {
+        int lo = 0;
+        int hi = len - 1;
+        while (hi > lo) {
+            // median of three as pivot
+            int mid = (lo + hi) >>> 1;
+            int a = values[lo], b = values[mid], c = values[hi];
+            int pivot = a < b ? (b < c ? b : (a < c ? c : a)) : (a < c ? a : (b < c ? c : b));
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (values[i] < pivot) i++;
+                while (values[j] > pivot) j--;
+                if (i <= j) {
+                    int tmp = values[i];
+                    values[i++] = values[j];
+                    values[j--] = tmp;
                 }
             }
+            if (index <= j) {
+                hi = j;
+            } else if (index >= i) {
+                lo = i;
+            } else {
+                return values[index];
+            }
         }
-        return dis;
+        return values[index];
     }
 
     /**
-     * Returns the shortest path from node to node.
-     * @param graph
-     * @return
+     * Partitions the nodes into k groups by k-medoids on the minimum delays, see {@link KMedoids}.
+     * The initial medoids are drawn from CommonState.r.
+     *
+     * @param minDelayMatrix all-pairs minimum delays
+     * @param nodeIdList nodes to partition
+     * @param k number of groups
+     * @return the members of every group followed by its medoid as the last element
      */
-    public static int[][] generateMinDelayMatrix(int[][] graph) {
-        int[][] minDelayMatrix = new int[graph.length][graph.length];
-        for (int i = 0; i < graph.length; i++)
-            for (int j = 0; j < graph.length; j++)
-                minDelayMatrix[i][j] = i == j ? 1 : Integer.MAX_VALUE;
+    public static ArrayList<ArrayList<Integer>>
+    getGraphPartitionResult(DelayMatrix minDelayMatrix, ArrayList<Integer> nodeIdList, int k) {
+        KMedoids kMedoids = new KMedoids(minDelayMatrix, toArray(nodeIdList), k);
+        kMedoids.initRandom(CommonState.r);
+        kMedoids.run();
+        return kMedoids.getClusterList();
+    }
 
-        for (int nodeIndex = 0; nodeIndex < graph.length; nodeIndex++) {
-            int[] singleNodeDelayArray = getSingelNodeMinDelay(graph, nodeIndex);
-            for (int i = 0; i < graph.length; i++) {
-                minDelayMatrix[nodeIndex][i] = singleNodeDelayArray[i];
-            }
-        }
-        return minDelayMatrix;
+    /**
+     * Partitions the nodes into k groups, keeping the best of 10000 random k-medoids restarts,
+     * see {@link #getGraphPartitionResult(DelayMatrix, ArrayList, double, int, int, int)}.
+     */
+    public static ArrayList<ArrayList<Integer>> getGraphPartitionResult(DelayMatrix minDelayMatrix, ArrayList<Integer> nodeIdList, double aggregationRatio, int k) {
+        return getGraphPartitionResult(minDelayMatrix, nodeIdList, aggregationRatio, k, 10000, 0);
     }
 
     /**
+     * Partitions the nodes into k groups by k-medoids from several random starts and keeps the
+     * partition with the lowest max cluster delay. The delay of a cluster is the delay at the
+     * aggregation ratio among the delays between its members: the m-th largest one with
+     * m = round(|nodeIdList| * (1 - aggregationRatio)) + 1, or the smallest if there are fewer.<br/>
+     * The restarts run in parallel in batches of {@value #RESTART_BATCH}. Restart i starts from
+     * its own seed derived from i and one draw of CommonState.r, and the results are compared in
+     * restart order, so the partition does not depend on the number of threads.
      *
-     * @param graph
-     * @param nodeIdList
+     * @param minDelayMatrix all-pairs minimum delays
+     * @param nodeIdList nodes to partition
      * @param aggregationRatio percentage of the model to begin aggregating
-     * @return
+     * @param k number of groups
+     * @param restarts maximal number of restarts
+     * @param patience stop after this many restarts without improvement, 0 means never stop early
+     * @return the members of every group followed by its medoid as the last element
      */
-    public static int findParameterServerId(int[][] graph, ArrayList<Integer> nodeIdList, double aggregationRatio) {
-        int[][] minDelayMatrix = generateMinDelayMatrix(graph);
+    public static ArrayList<ArrayList<Integer>> getGraphPartitionResult(final DelayMatrix minDelayMatrix, ArrayList<Integer> nodeIdList,
+                                                                        double aggregationRatio, final int k, int restarts, int patience) {
+        final int[] nodeIds = toArray(nodeIdList);
+        final int rank = (int) Math.round(nodeIds.length * (1 - aggregationRatio)) + 1;
+        final long baseSeed = CommonState.r.nextLong();
 
-        ArrayList<Integer> theDelaysAtAggregationRatio = new ArrayList<>();
-        int k = (int)Math.round(nodeIdList.size() * (1 - aggregationRatio)) + 1;
-        for (int i = 0; i < nodeIdList.size(); i++) {
-            PriorityQueue<Integer> largeK = new PriorityQueue<>(k + 1);
-            for (int j = 0; j < nodeIdList.size(); j++) {
-                if (i == j) {
-                    continue;
+        final KMedoids[] batch = new KMedoids[RESTART_BATCH];
+        final int[] batchDelay = new int[RESTART_BATCH];
+        KMedoids best = null;
+        int minClusterDelay = Integer.MAX_VALUE;
+        int lastImprovement = 0;
+        for (int first = 0; first < Math.max(1, restarts); first += RESTART_BATCH) {
+            final int batchStart = first;
+            int size = Math.min(RESTART_BATCH, Math.max(1, restarts) - first);
+            Parallel.forRange(0, size, 1, new Parallel.RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        KMedoids kMedoids = new KMedoids(minDelayMatrix, nodeIds, k);
+                        kMedoids.initRandom(new Random(restartSeed(baseSeed, batchStart + i)));
+                        kMedoids.run();
+                        batch[i] = kMedoids;
+                        batchDelay[i] = maxClusterDelay(minDelayMatrix, nodeIds, kMedoids.getAssignment(), k, rank);
+                    }
                 }
-                largeK.add(minDelayMatrix[nodeIdList.get(i)][nodeIdList.get(j)]);
-                if (largeK.size() > k) {
-                    largeK.poll();
+            });
+            for (int i = 0; i < size; i++) {
+                int restart = batchStart + i;
+                if (best == null || batchDelay[i] < minClusterDelay) {
+                    best = batch[i];
+                    minClusterDelay = batchDelay[i];
+                    lastImprovement = restart;
+                } else if (patience > 0 && restart - lastImprovement >= patience) {
+                    return best.getClusterList();
                 }
             }
-            theDelaysAtAggregationRatio.add(largeK.poll());
         }
-//        System.out.println(theDelaysAtAggregationRatio);
-        int selectedNodeId = nodeIdList.get(0);
-        int minDelay = theDelaysAtAggregationRatio.get(0);
-        for (int nodeIndex = 1; nodeIndex < theDelaysAtAggregationRatio.size(); nodeIndex++) {
-            if (theDelaysAtAggregationRatio.get(nodeIndex) < minDelay) {
-                minDelay = theDelaysAtAggregationRatio.get(nodeIndex);
-                selectedNodeId = nodeIdList.get(nodeIndex);
-            }
-        }
-        return selectedNodeId;
+        return best.getClusterList();
     }
 
-    public static ArrayList<ArrayList<Integer>>
-    getGraphPartitionResult(int[][] graph, ArrayList<Integer> nodeIdList, int k) {
-        int[][] minDelayMatrix = generateMinDelayMatrix(graph);
-        ArrayList<ArrayList<Integer>> clusterList = new ArrayList<>(3);
-        for (int i = 0; i < k; i++) {
-            ArrayList<Integer> cluster = new ArrayList<>(nodeIdList.size());
-            clusterList.add(cluster);
-        }
-        int[] clusterCenterNodeId = new int[k];
-        HashSet<Integer> hashSet = new HashSet<>();
-        int[] finalClusterCenterId = new int[k];
+    /**
+     * Returns the largest cluster delay of a partition, see
+     * {@link #getGraphPartitionResult(DelayMatrix, ArrayList, double, int, int, int)}.
+     */
+    private static int maxClusterDelay(DelayMatrix minDelayMatrix, int[] nodeIds, int[] assignment, int k, int rank) {
+        int[] sizes = new int[k + 1];
+        for (int cluster : assignment) sizes[cluster + 1]++;
+        for (int i = 0; i < k; i++) sizes[i + 1] += sizes[i];
+        int[] members = new int[nodeIds.length];
+        int[] next = Arrays.copyOf(sizes, k);
+        for (int o = 0; o < nodeIds.length; o++) members[next[assignment[o]]++] = nodeIds[o];
 
+        LargestK largeK = new LargestK(rank);
+        int maxClusterDelay = 0;
         for (int i = 0; i < k; i++) {
-            int randomNodeIndex = CommonState.r.nextInt(nodeIdList.size());
-            while (hashSet.contains(randomNodeIndex)) {
-                randomNodeIndex = CommonState.r.nextInt(nodeIdList.size());
-            }
-            hashSet.add(randomNodeIndex);
-            clusterCenterNodeId[i] = nodeIdList.get(randomNodeIndex);
-        }
-        boolean terminateFlag = false;
-        while (!terminateFlag) {
-            terminateFlag = true;
-            for (int i = 0; i < k; i++) {
-                clusterList.get(i).clear();
-            }
-            for (int i = 0; i < nodeIdList.size(); i++) {
-                int nearestClusterCenter = 0;
-                int minDelay = minDelayMatrix[nodeIdList.get(i)][clusterCenterNodeId[0]];
-                for (int j = 1; j < k; j++) {
-                    if (minDelayMatrix[nodeIdList.get(i)][clusterCenterNodeId[j]] < minDelay) {
-                        nearestClusterCenter = j;
-                        minDelay = minDelayMatrix[nodeIdList.get(i)][clusterCenterNodeId[j]];
-                    }
+            largeK.clear();
+            for (int a = sizes[i]; a < sizes[i + 1]; a++) {
+                for (int b = a + 1; b < sizes[i + 1]; b++) {
+                    // both directions of the pair count
+                    int delay = minDelayMatrix.getDelay(members[a], members[b]);
+                    largeK.add(delay);
+                    largeK.add(delay);
                 }
-                clusterList.get(nearestClusterCenter).add(nodeIdList.get(i));
             }
-            for (int i = 0; i < k; i++) {
-                int minTotalDelay = Integer.MAX_VALUE;
-                int newCenterNodeId = clusterCenterNodeId[i];
-                for (int j = 0; j < clusterList.get(i).size(); j++) {
-                    int totalDelay = 0;
-                    for (Integer nodeId : clusterList.get(i)) {
-                        if (nodeId.equals(clusterList.get(i).get(j))) {
-                            continue;
-                        }
-                        totalDelay += minDelayMatrix[nodeId][clusterList.get(i).get(j)];
-                    }
-                    if (totalDelay < minTotalDelay) {
-                        minTotalDelay = totalDelay;
-                        newCenterNodeId = clusterList.get(i).get(j);
-                    }
-                }
-                if (newCenterNodeId != clusterCenterNodeId[i]) {
-                    terminateFlag = false;
-                    clusterCenterNodeId[i] = newCenterNodeId;
-                }
-                finalClusterCenterId = clusterCenterNodeId;
+            if (largeK.size() > 0 && largeK.smallest() > maxClusterDelay) {
+                maxClusterDelay = largeK.smallest();
             }
         }
-        for (int i = 0; i < finalClusterCenterId.length; i++) {
-            // System.out.println(finalClusterCenterId[i]);
-            clusterList.get(i).add(finalClusterCenterId[i]);
-            // System.out.println(finalClusterList.get(i));
-        }
-        return clusterList;
+        return maxClusterDelay;
     }
 
-    public static ArrayList<ArrayList<Integer>> getGraphPartitionResult(int[][] graph, ArrayList<Integer> nodeIdList, double aggregationRatio, int k) {
-        int minClusterDelay = Integer.MAX_VALUE;
-        int tmpMinClusterDelay = Integer.MAX_VALUE;
-        int[][] minDelayMatrix = generateMinDelayMatrix(graph);
-        ArrayList<ArrayList<Integer>> finalClusterList = new ArrayList<>();
-        int[] finalClusterCenterId = new int[k];
-        for (int it = 0; it < 10000; it++) {
-            ArrayList<ArrayList<Integer>> clusterList = new ArrayList<>(k);
-            for (int i = 0; i < k; i++) {
-                ArrayList<Integer> cluster = new ArrayList<>(nodeIdList.size());
-                clusterList.add(cluster);
-            }
-            int[] clusterCenterNodeId = new int[k];
-            HashSet<Integer> hashSet = new HashSet<>();
-            for (int i = 0; i < k; i++) {
-                int randomNodeIndex = CommonState.r.nextInt(nodeIdList.size());
-                while (hashSet.contains(randomNodeIndex)) {
-                    randomNodeIndex = CommonState.r.nextInt(nodeIdList.size());
-                }
-                hashSet.add(randomNodeIndex);
-                clusterCenterNodeId[i] = nodeIdList.get(randomNodeIndex);
-            }
-            boolean terminateFlag = false;
-            while (!terminateFlag) {
-                terminateFlag = true;
-                for (int i = 0; i < k; i++) {
-                    clusterList.get(i).clear();
-                }
-                for (int i = 0; i < nodeIdList.size(); i++) {
-                    int nearestClusterCenter = 0;
-                    int minDelay = minDelayMatrix[nodeIdList.get(i)][clusterCenterNodeId[0]];
-                    for (int j = 1; j < k; j++) {
-                        if (minDelayMatrix[nodeIdList.get(i)][clusterCenterNodeId[j]] < minDelay) {
-                            nearestClusterCenter = j;
-                            minDelay = minDelayMatrix[nodeIdList.get(i)][clusterCenterNodeId[j]];
-                        }
-                    }
-                    clusterList.get(nearestClusterCenter).add(nodeIdList.get(i));
-                }
-                int maxClusterDelay = 0;
-                for (int i = 0; i < k; i++) {
-                    int minTotalDelay = Integer.MAX_VALUE;
-                    int newCenterNodeId = clusterCenterNodeId[i];
-                    int maxDelay = 0;
-                    int n = (int) (Math.round(nodeIdList.size() * (1 - aggregationRatio)) + 1);
-                    PriorityQueue<Integer> largeK = new PriorityQueue<>(n + 1);
-                    for (int j = 0; j < clusterList.get(i).size(); j++) {
-                        int totalDelay = 0;
-                        for (Integer nodeId : clusterList.get(i)) {
-                            if (nodeId == clusterList.get(i).get(j)) {
-                                continue;
-                            }
-                            totalDelay += minDelayMatrix[nodeId][clusterList.get(i).get(j)];
-                            if (minDelayMatrix[nodeId][clusterList.get(i).get(j)] > maxDelay) {
-                                maxDelay = minDelayMatrix[nodeId][clusterList.get(i).get(j)];
-                            }
-                            largeK.add(minDelayMatrix[nodeId][clusterList.get(i).get(j)]);
-                            if (largeK.size() > n) {
-                                largeK.poll();
-                            }
-                        }
-                        if (totalDelay < minTotalDelay) {
-                            minTotalDelay = totalDelay;
-                            newCenterNodeId = clusterList.get(i).get(j);
-                        }
-                    }
-                    if (newCenterNodeId != clusterCenterNodeId[i]) {
-                        terminateFlag = false;
-                        clusterCenterNodeId[i] = newCenterNodeId;
-                    }
-                    Object tmp = largeK.poll();
-                    int tmpMaxDelay = 0;
-                    if (tmp != null) {
-                        tmpMaxDelay = (Integer) tmp;
-                    }
-                    if (tmpMaxDelay > maxClusterDelay) {
-                        maxClusterDelay = tmpMaxDelay;
-                    }
-                }
-                // System.out.println(maxClusterDelay);
-                tmpMinClusterDelay = maxClusterDelay;
+    /**
+     * SplitMix64 mix of the base seed and the restart number.
+     */
+    private static long restartSeed(long baseSeed, int restart) {
+        long z = baseSeed + (restart + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Keeps the k largest of the added values in a primitive min-heap,
+     * like a PriorityQueue that is polled whenever it grows beyond k.
+     */
+    private static class LargestK {
+        private final int[] heap;
+        private int size;
+
+        LargestK(int k) {
+            heap = new int[Math.max(1, k)];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the smallest kept value, i.e. the k-th largest value if at least k were added
+         */
+        int smallest() {
+            return heap[0];
+        }
+
+        void add(int value) {
+            if (size == heap.length) {
+                if (value <= heap[0]) return;
+                siftDown(value);
+                return;
             }
-            if (tmpMinClusterDelay < minClusterDelay) {
-                minClusterDelay = tmpMinClusterDelay;
-//                System.out.println(minClusterDelay);
-                finalClusterList = clusterList;
-                finalClusterCenterId = clusterCenterNodeId;
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) break;
+                heap[i] = heap[parent];
+                i = parent;
             }
+            heap[i] = value;
         }
 
-        for (int i = 0; i < finalClusterCenterId.length; i++) {
-            // System.out.println(finalClusterCenterId[i]);
-            finalClusterList.get(i).add(finalClusterCenterId[i]);
-            // System.out.println(finalClusterList.get(i));
+        private void siftDown(int value) {
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (value <= heap[child]) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = value;
         }
-        return finalClusterList;
+    }
+
+    private static int[] toArray(ArrayList<Integer> nodeIdList) {
+        int[] nodeIds = new int[nodeIdList.size()];
+        for (int i = 0; i < nodeIds.length; i++) nodeIds[i] = nodeIdList.get(i);
+        return nodeIds;
     }
 }
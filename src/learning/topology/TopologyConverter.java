@@ -0,0 +1,50 @@
+package learning.topology;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Converts a text edge list ("from to delay" per line, node ids start with 1)
+ * into the binary topology format of {@link CSRGraph}.<br/>
+ * Usage: java learning.topology.TopologyConverter input output [n]<br/>
+ * Without n the number of nodes is the largest node id of the edge list.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class TopologyConverter {
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: TopologyConverter input output [n]");
+            System.exit(1);
+        }
+        try {
+            int n = args.length > 2 ? Integer.parseInt(args[2]) : maxNodeId(args[0]);
+            long start = System.currentTimeMillis();
+            CSRGraph graph = CSRGraph.load(n, args[0]);
+            graph.saveBinary(args[1]);
+            System.err.println("TopologyConverter: " + args[0] + " -> " + args[1]
+                    + ", nodes: " + graph.size() + ", links: " + graph.edgeCount() / 2
+                    + ", time: " + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int maxNodeId(String filePath) throws IOException {
+        int max = 0;
+        BufferedReader bf = new BufferedReader(new FileReader(filePath));
+        try {
+            String str;
+            while ((str = bf.readLine()) != null) {
+                String[] temp = str.split(" ");
+                max = Math.max(max, Math.max(Integer.parseInt(temp[0]), Integer.parseInt(temp[1])));
+            }
+        } finally {
+            bf.close();
+        }
+        return max;
+    }
+}
@@ -0,0 +1,455 @@
+package learning.topology;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Generates synthetic physical topologies for scale tests, written in the edge list
+ * format read by {@link CSRGraph#load} ("from to delay" per line, node ids start with 1).
+ * Edges are written to the file as soon as they are drawn, only O(n) state is kept.
+ * Every generated graph is connected.<br/>
+ * Usage: java learning.topology.TopologyGenerator model=... n=... out=... [key=value ...]
+ * <ul>
+ * <li>model=waxman: nodes uniform in the unit square, u and v linked with probability
+ * beta * exp(-d / (alpha * sqrt(2))). Parameters: degree (average degree, default 6),
+ * alpha (default chosen from n and degree), beta (default chosen to reach the degree).
+ * Pairs whose probability is below 1e-4 * beta are not tried, the nodes are bucketed in a grid
+ * so only nearby pairs are looked at. Components are joined along a snake path through the grid.
+ * The default delay grows linearly with the distance from delayMin to delayMax at the cutoff distance.</li>
+ * <li>model=ba: Barabasi-Albert preferential attachment, every new node links to
+ * m (default 3) distinct existing nodes.</li>
+ * <li>model=transitstub: hierarchical transit-stub network. transitDomains (default 4) domains of
+ * transitNodes (default 8) nodes each, every transit node has stubsPerTransit (default 3) stub domains,
+ * the remaining nodes are spread over the stub domains. Domains are random connected graphs without repeated links
+ * with average degree domainDegree (default 4), transit domains are linked by interDomainLinks
+ * (default 2) links per domain and a stub is linked to another transit node with probability multihome
+ * (default 0.1). The delay ranges of the link classes are transitDelay (default 40,100),
+ * intraTransitDelay (10,40), stubDelay (5,20) and intraStubDelay (1,10).</li>
+ * </ul>
+ * Delays: delay=uniform|normal|lognormal|exponential|distance with delayMin (default 1), delayMax (100),
+ * delayMean (50) and delayStd (20); every delay is at least 1. seed (default 1234567890) fixes the graph.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class TopologyGenerator {
+    private final HashMap<String, String> params;
+    private final Random r;
+    private final int n;
+    private final BufferedWriter writer;
+    private final int[] componentParent;
+    private long edges;
+
+    private TopologyGenerator(HashMap<String, String> params, BufferedWriter writer) {
+        this.params = params;
+        this.writer = writer;
+        this.n = getInt("n", -1);
+        if (n < 2) {
+            throw new RuntimeException("Exception occured in TopologyGenerator: n must be at least 2");
+        }
+        this.r = new Random(getLong("seed", 1234567890L));
+        this.componentParent = new int[n];
+        for (int i = 0; i < n; i++) componentParent[i] = i;
+    }
+
+    public static void main(String[] args) {
+        HashMap<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Usage: TopologyGenerator model=waxman|ba|transitstub n=<nodes> out=<file> [key=value ...]");
+                System.exit(1);
+            }
+            params.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        String out = params.get("out");
+        String model = params.get("model");
+        if (out == null || model == null) {
+            System.err.println("Usage: TopologyGenerator model=waxman|ba|transitstub n=<nodes> out=<file> [key=value ...]");
+            System.exit(1);
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            BufferedWriter writer = new BufferedWriter(new FileWriter(out), 1 << 16);
+            TopologyGenerator generator = new TopologyGenerator(params, writer);
+            if (model.equals("waxman")) {
+                generator.waxman();
+            } else if (model.equals("ba")) {
+                generator.barabasiAlbert();
+            } else if (model.equals("transitstub")) {
+                generator.transitStub();
+            } else {
+                throw new RuntimeException("Exception occured in TopologyGenerator: unknown model " + model);
+            }
+            writer.flush();
+            writer.close();
+            System.err.println("TopologyGenerator: " + model + ", nodes: " + generator.n
+                    + ", links: " + generator.edges
+                    + ", average degree: " + String.format("%.2f", 2.0 * generator.edges / generator.n)
+                    + ", time: " + (System.currentTimeMillis() - start) + " ms, written to " + out);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Models
+    //--------------------------------------------------------------------------
+
+    private void waxman() throws IOException {
+        double degree = getDouble("degree", 6);
+        final double maxDistance = Math.sqrt(2);
+        // by default one node expects about 4 * degree nodes within alpha * sqrt(2)
+        double alpha = getDouble("alpha", Math.sqrt(4 * degree / (2 * Math.PI * n)) / maxDistance);
+        double scale = alpha * maxDistance;
+        double cutoff = Math.min(maxDistance, scale * Math.log(1e4));
+        DelayDistribution delay = new DelayDistribution("distance");
+
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = r.nextDouble();
+            y[i] = r.nextDouble();
+        }
+
+        // bucket the nodes into a grid whose cells are at least cutoff wide
+        int side = Math.max(1, Math.min((int) (1 / cutoff), (int) Math.sqrt(n) + 1));
+        int[] cellStart = new int[side * side + 1];
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = Math.min(side - 1, (int) (y[i] * side)) * side + Math.min(side - 1, (int) (x[i] * side));
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < side * side; c++) cellStart[c + 1] += cellStart[c];
+        int[] cellNodes = new int[n];
+        int[] next = new int[side * side];
+        System.arraycopy(cellStart, 0, next, 0, side * side);
+        for (int i = 0; i < n; i++) cellNodes[next[cellOf[i]]++] = i;
+
+        double beta;
+        if (params.containsKey("beta")) {
+            beta = getDouble("beta", 1);
+        } else {
+            // expected degree with beta = 1, averaged over sampled nodes
+            double expected = 0;
+            int samples = Math.min(n, 1000);
+            for (int s = 0; s < samples; s++) {
+                int u = r.nextInt(n);
+                int cx = cellOf[u] % side;
+                int cy = cellOf[u] / side;
+                for (int gy = Math.max(0, cy - 1); gy <= Math.min(side - 1, cy + 1); gy++) {
+                    for (int gx = Math.max(0, cx - 1); gx <= Math.min(side - 1, cx + 1); gx++) {
+                        int c = gy * side + gx;
+                        for (int p = cellStart[c]; p < cellStart[c + 1]; p++) {
+                            int v = cellNodes[p];
+                            double d = distance(x, y, u, v);
+                            if (v != u && d <= cutoff) expected += Math.exp(-d / scale);
+                        }
+                    }
+                }
+            }
+            expected /= samples;
+            beta = degree / expected;
+            if (beta > 1) {
+                System.err.println("TopologyGenerator: alpha " + alpha + " is too small for degree " + degree
+                        + ", the average degree will be about " + String.format("%.2f", expected));
+                beta = 1;
+            }
+        }
+
+        for (int u = 0; u < n; u++) {
+            int cx = cellOf[u] % side;
+            int cy = cellOf[u] / side;
+            for (int gy = Math.max(0, cy - 1); gy <= Math.min(side - 1, cy + 1); gy++) {
+                for (int gx = Math.max(0, cx - 1); gx <= Math.min(side - 1, cx + 1); gx++) {
+                    int c = gy * side + gx;
+                    for (int p = cellStart[c]; p < cellStart[c + 1]; p++) {
+                        int v = cellNodes[p];
+                        if (v <= u) continue;
+                        double d = distance(x, y, u, v);
+                        if (d <= cutoff && r.nextDouble() < beta * Math.exp(-d / scale)) {
+                            writeEdge(u, v, delay.next(d / cutoff));
+                        }
+                    }
+                }
+            }
+        }
+
+        // join the components along a snake path through the grid cells
+        int previous = -1;
+        for (int gy = 0; gy < side; gy++) {
+            for (int step = 0; step < side; step++) {
+                int c = gy * side + ((gy & 1) == 0 ? step : side - 1 - step);
+                for (int p = cellStart[c]; p < cellStart[c + 1]; p++) {
+                    int v = cellNodes[p];
+                    if (previous >= 0 && find(previous) != find(v)) {
+                        writeEdge(previous, v, delay.next(distance(x, y, previous, v) / cutoff));
+                    }
+                    previous = v;
+                }
+            }
+        }
+    }
+
+    private void barabasiAlbert() throws IOException {
+        int m = getInt("m", 3);
+        if (m < 1) {
+            throw new RuntimeException("Exception occured in TopologyGenerator: m must be at least 1");
+        }
+        DelayDistribution delay = new DelayDistribution("uniform");
+        int initial = Math.min(n, m + 1);
+        // a node is drawn with probability ~ its degree, the degrees are kept in a Fenwick tree
+        int[] degrees = new int[n + 1];
+        int total = 0;
+        for (int u = 0; u < initial; u++) {
+            for (int v = u + 1; v < initial; v++) {
+                writeEdge(u, v, delay.next(0));
+            }
+            addDegree(degrees, u, initial - 1);
+            total += initial - 1;
+        }
+        int[] targets = new int[m];
+        for (int u = initial; u < n; u++) {
+            int count = 0;
+            while (count < m) {
+                int v = findDegree(degrees, r.nextInt(total));
+                boolean repeated = false;
+                for (int i = 0; i < count; i++) {
+                    if (targets[i] == v) {
+                        repeated = true;
+                        break;
+                    }
+                }
+                if (!repeated) targets[count++] = v;
+            }
+            for (int i = 0; i < m; i++) {
+                writeEdge(u, targets[i], delay.next(0));
+                addDegree(degrees, targets[i], 1);
+            }
+            addDegree(degrees, u, m);
+            total += 2 * m;
+        }
+    }
+
+    /**
+     * Adds to the degree of a node in the Fenwick tree (1-based internally).
+     */
+    private static void addDegree(int[] tree, int node, int value) {
+        for (int i = node + 1; i < tree.length; i += i & -i) {
+            tree[i] += value;
+        }
+    }
+
+    /**
+     * Returns the node whose degree range contains x, that is the first node
+     * whose prefix sum of degrees is greater than x.
+     */
+    private static int findDegree(int[] tree, int x) {
+        int pos = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            if (pos + step < tree.length && tree[pos + step] <= x) {
+                pos += step;
+                x -= tree[pos];
+            }
+        }
+        return pos;
+    }
+
+    private void transitStub() throws IOException {
+        int transitDomains = getInt("transitDomains", 4);
+        int transitNodes = getInt("transitNodes", 8);
+        int stubsPerTransit = getInt("stubsPerTransit", 3);
+        double domainDegree = getDouble("domainDegree", 4);
+        int interDomainLinks = getInt("interDomainLinks", 2);
+        double multihome = getDouble("multihome", 0.1);
+        DelayDistribution transitDelay = new DelayDistribution("transitDelay", 40, 100);
+        DelayDistribution intraTransitDelay = new DelayDistribution("intraTransitDelay", 10, 40);
+        DelayDistribution stubDelay = new DelayDistribution("stubDelay", 5, 20);
+        DelayDistribution intraStubDelay = new DelayDistribution("intraStubDelay", 1, 10);
+
+        int transits = transitDomains * transitNodes;
+        int stubs = transits * stubsPerTransit;
+        if (transits + stubs > n) {
+            throw new RuntimeException("Exception occured in TopologyGenerator: " + n + " nodes are too few for "
+                    + transits + " transit nodes and " + stubs + " stub domains");
+        }
+
+        // transit nodes come first, domain by domain
+        for (int d = 0; d < transitDomains; d++) {
+            randomDomain(d * transitNodes, transitNodes, domainDegree, intraTransitDelay);
+        }
+        HashSet<Long> interLinks = new HashSet<>();
+        for (int d = 1; d < transitDomains; d++) {
+            // a tree of domains keeps them connected, the other links are random,
+            // a link drawn again is skipped (the domains are connected by it already)
+            int other = r.nextInt(d);
+            writeNewEdge(interLinks, d * transitNodes + r.nextInt(transitNodes),
+                    other * transitNodes + r.nextInt(transitNodes), transitDelay);
+            for (int l = 1; l < interDomainLinks; l++) {
+                other = r.nextInt(transitDomains);
+                if (other == d) continue;
+                writeNewEdge(interLinks, d * transitNodes + r.nextInt(transitNodes),
+                        other * transitNodes + r.nextInt(transitNodes), transitDelay);
+            }
+        }
+
+        // then the stub domains, the remaining nodes are spread evenly
+        int first = transits;
+        for (int s = 0; s < stubs; s++) {
+            int size = (n - transits) / stubs + (s < (n - transits) % stubs ? 1 : 0);
+            randomDomain(first, size, domainDegree, intraStubDelay);
+            int transit = s / stubsPerTransit;
+            writeEdge(first + r.nextInt(size), transit, stubDelay.next(0));
+            if (transits > 1 && r.nextDouble() < multihome) {
+                int other = r.nextInt(transits - 1);
+                if (other >= transit) other++;
+                writeEdge(first + r.nextInt(size), other, stubDelay.next(0));
+            }
+            first += size;
+        }
+    }
+
+    /**
+     * Links the nodes first .. first+size-1 by a random spanning tree plus distinct random extra links
+     * up to the given average degree, or until the domain is complete.
+     */
+    private void randomDomain(int first, int size, double degree, DelayDistribution delay) throws IOException {
+        HashSet<Long> links = new HashSet<>();
+        for (int i = 1; i < size; i++) {
+            writeNewEdge(links, first + i, first + r.nextInt(i), delay);
+        }
+        long extra = Math.min(Math.round(degree * size / 2), (long) size * (size - 1) / 2) - (size - 1);
+        for (long e = 0; e < extra && size > 1; ) {
+            int u = r.nextInt(size);
+            int v = r.nextInt(size - 1);
+            if (v >= u) v++;
+            if (writeNewEdge(links, first + u, first + v, delay)) e++;
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Helpers
+    //--------------------------------------------------------------------------
+
+    /**
+     * Writes the link unless it is in the given set of links already, the delay is drawn only for a new link.
+     *
+     * @return true if the link was written
+     */
+    private boolean writeNewEdge(HashSet<Long> links, int u, int v, DelayDistribution delay) throws IOException {
+        if (!links.add(((long) Math.min(u, v) << 32) | Math.max(u, v))) return false;
+        writeEdge(u, v, delay.next(0));
+        return true;
+    }
+
+    private void writeEdge(int u, int v, int delay) throws IOException {
+        writer.write(Integer.toString(u + 1));
+        writer.write(' ');
+        writer.write(Integer.toString(v + 1));
+        writer.write(' ');
+        writer.write(Integer.toString(delay));
+        writer.write('\n');
+        edges++;
+        componentParent[find(u)] = find(v);
+    }
+
+    private int find(int u) {
+        while (componentParent[u] != u) {
+            componentParent[u] = componentParent[componentParent[u]];
+            u = componentParent[u];
+        }
+        return u;
+    }
+
+    private static double distance(double[] x, double[] y, int u, int v) {
+        double dx = x[u] - x[v];
+        double dy = y[u] - y[v];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = params.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private long getLong(String key, long defaultValue) {
+        String value = params.get(key);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    private double getDouble(String key, double defaultValue) {
+        String value = params.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    /**
+     * Draws link delays, every delay is at least 1.
+     */
+    private class DelayDistribution {
+        private final String kind;
+        private final double min;
+        private final double max;
+        private final double mean;
+        private final double std;
+
+        /**
+         * Distribution of the delay parameter, defaulting to the given kind.
+         */
+        DelayDistribution(String defaultKind) {
+            kind = params.containsKey("delay") ? params.get("delay") : defaultKind;
+            min = getDouble("delayMin", 1);
+            max = getDouble("delayMax", 100);
+            mean = getDouble("delayMean", 50);
+            std = getDouble("delayStd", 20);
+            if (!kind.equals("uniform") && !kind.equals("normal") && !kind.equals("lognormal")
+                    && !kind.equals("exponential") && !kind.equals("distance")) {
+                throw new RuntimeException("Exception occured in TopologyGenerator: unknown delay " + kind);
+            }
+        }
+
+        /**
+         * Uniform distribution of a link class given as key=min,max.
+         */
+        DelayDistribution(String key, double defaultMin, double defaultMax) {
+            kind = "uniform";
+            String range = params.get(key);
+            if (range == null) {
+                min = defaultMin;
+                max = defaultMax;
+            } else {
+                String[] bounds = range.split(",");
+                min = Double.parseDouble(bounds[0]);
+                max = Double.parseDouble(bounds[1]);
+            }
+            mean = (min + max) / 2;
+            std = 0;
+        }
+
+        /**
+         * @param distanceFraction distance of the ends relative to the longest link (distance kind only)
+         * @return delay
+         */
+        int next(double distanceFraction) {
+            double delay;
+            if (kind.equals("uniform")) {
+                delay = min + r.nextDouble() * (max - min);
+            } else if (kind.equals("normal")) {
+                delay = mean + std * r.nextGaussian();
+            } else if (kind.equals("lognormal")) {
+                // mu and sigma of the underlying normal, chosen to give the mean and deviation
+                double sigma2 = Math.log(1 + (std * std) / (mean * mean));
+                delay = Math.exp(Math.log(mean) - sigma2 / 2 + Math.sqrt(sigma2) * r.nextGaussian());
+            } else if (kind.equals("exponential")) {
+                delay = min - mean * Math.log(1 - r.nextDouble());
+            } else {
+                delay = min + distanceFraction * (max - min);
+            }
+            return (int) Math.max(1, Math.round(delay));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package learning.topology;
+
+import learning.utils.Parallel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compact minimum delays of a symmetric network.
+ * Every edge is stored in both directions, so delay(i, j) == delay(j, i) and the diagonal is 0;
+ * only the strict upper triangle is kept, row by row, in one direct (off-heap) buffer.
+ * Each delay uses the narrowest unsigned width (1, 2 or 4 bytes) that holds the largest finite delay,
+ * the largest code of that width stands for Integer.MAX_VALUE (unreachable).<br/>
+ * The buffer holds at most 2GB, i.e. about 65000 nodes with 1 byte delays
+ * or 46000 nodes with 2 byte delays. Direct memory is limited by -XX:MaxDirectMemorySize.
+ * A {@link #setRow} with a delay that does not fit widens every delay.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class TriangularDelayMatrix implements DelayMatrix {
+    private final int n;
+    /* log2 of the bytes per delay */
+    private int shift;
+    private int unreachable;
+    /* rowBase[i] + j is the entry index of (i, j) for i < j */
+    private final int[] rowBase;
+    private ByteBuffer delays;
+
+    private TriangularDelayMatrix(int n, int shift) {
+        long entries = (long) n * (n - 1) / 2;
+        if ((entries << shift) > Integer.MAX_VALUE) {
+            throw new RuntimeException("Exception occured in TriangularDelayMatrix: "
+                    + n + " nodes do not fit into one buffer, use another DELAY_ORACLE mode");
+        }
+        this.n = n;
+        this.shift = shift;
+        this.unreachable = shift == 0 ? 0xff : shift == 1 ? 0xffff : Integer.MAX_VALUE;
+        this.rowBase = new int[n];
+        for (int i = 0; i < n; i++) {
+            rowBase[i] = (int) ((long) i * (2L * n - i - 1) / 2 - i - 1);
+        }
+        this.delays = ByteBuffer.allocateDirect((int) (entries << shift)).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Computes the all-pairs minimum delays of the graph into compact storage.
+     * The rows are computed in parallel and written with 2 byte delays first,
+     * they are narrowed to 1 byte or recomputed with 4 bytes if the largest delay asks for it.
+     *
+     * @param graph physical topology
+     * @return minimum delays
+     */
+    public static TriangularDelayMatrix build(CSRGraph graph) {
+        TriangularDelayMatrix matrix = new TriangularDelayMatrix(graph.size(), 1);
+        int maxDelay = matrix.fill(graph);
+        if (maxDelay >= 0xffff) {
+            matrix = new TriangularDelayMatrix(graph.size(), 2);
+            matrix.fill(graph);
+        } else if (maxDelay < 0xff) {
+            matrix = matrix.narrow();
+        }
+        return matrix;
+    }
+
+    /**
+     * Writes the upper triangle of every row and returns the largest finite delay.
+     */
+    private int fill(final CSRGraph graph) {
+        final int[] maxDelay = new int[1];
+        Parallel.forRange(0, n, new Parallel.RangeTask() {
+            @Override
+            public void run(int from, int to) {
+                ShortestPaths engine = new ShortestPaths(graph);
+                int[] row = new int[n];
+                int localMax = 0;
+                for (int i = from; i < to; i++) {
+                    engine.singleSource(i, row);
+                    for (int j = i + 1; j < n; j++) {
+                        int delay = row[j];
+                        if (delay != Integer.MAX_VALUE && delay > localMax) {
+                            localMax = delay;
+                        }
+                        put(rowBase[i] + j, delay);
+                    }
+                }
+                synchronized (maxDelay) {
+                    maxDelay[0] = Math.max(maxDelay[0], localMax);
+                }
+            }
+        });
+        return maxDelay[0];
+    }
+
+    /**
+     * Copies 2 byte delays into a new matrix with 1 byte delays.
+     */
+    private TriangularDelayMatrix narrow() {
+        TriangularDelayMatrix matrix = new TriangularDelayMatrix(n, 0);
+        int entries = delays.capacity() >>> shift;
+        for (int index = 0; index < entries; index++) {
+            int code = delays.getChar(index << 1);
+            matrix.delays.put(index, (byte) (code == unreachable ? matrix.unreachable : code));
+        }
+        return matrix;
+    }
+
+    private void put(int index, int delay) {
+        // absolute puts do not touch the buffer position, so rows can be written concurrently
+        switch (shift) {
+            case 0:
+                delays.put(index, (byte) (delay == Integer.MAX_VALUE ? unreachable : delay));
+                break;
+            case 1:
+                delays.putChar(index << 1, (char) (delay == Integer.MAX_VALUE ? unreachable : delay));
+                break;
+            default:
+                delays.putInt(index << 2, delay);
+        }
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int getDelay(int from, int to) {
+        if (from == to) return 0;
+        int index = from < to ? rowBase[from] + to : rowBase[to] + from;
+        int code;
+        switch (shift) {
+            case 0:
+                code = delays.get(index) & 0xff;
+                break;
+            case 1:
+                code = delays.getChar(index << 1);
+                break;
+            default:
+                return delays.getInt(index << 2);
+        }
+        return code == unreachable ? Integer.MAX_VALUE : code;
+    }
+
+    @Override
+    public void setRow(int source, int[] row) {
+        int largest = 0;
+        for (int j = 0; j < n; j++) {
+            if (j != source && row[j] != Integer.MAX_VALUE && row[j] > largest) largest = row[j];
+        }
+        while (shift < 2 && largest >= unreachable) {
+            widen();
+        }
+        for (int j = 0; j < n; j++) {
+            if (j == source) continue;
+            put(source < j ? rowBase[source] + j : rowBase[j] + source, row[j]);
+        }
+    }
+
+    /**
+     * Copies the delays into a buffer with twice as wide delays.
+     */
+    private void widen() {
+        TriangularDelayMatrix wider = new TriangularDelayMatrix(n, shift + 1);
+        int entries = delays.capacity() >>> shift;
+        for (int index = 0; index < entries; index++) {
+            int code = shift == 0 ? delays.get(index) & 0xff : delays.getChar(index << 1);
+            wider.put(index, code == unreachable ? Integer.MAX_VALUE : code);
+        }
+        delays = wider.delays;
+        shift = wider.shift;
+        unreachable = wider.unreachable;
+    }
+
+    @Override
+    public long memoryBytes() {
+        return delays.capacity() + 4L * n;
+    }
+
+    /**
+     * @return bytes used by one delay
+     */
+    public int getDelayBytes() {
+        return 1 << shift;
+    }
+}
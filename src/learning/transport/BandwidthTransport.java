@@ -0,0 +1,96 @@
+package learning.transport;
+
+import learning.messages.ModelMessage;
+import peersim.config.Configuration;
+import peersim.core.CommonState;
+import peersim.core.Node;
+import peersim.edsim.EDSimulator;
+
+import java.util.Arrays;
+
+/**
+ * Minimum delay transport that also charges the transmission time of the message.
+ * A message of s bytes leaves the sender after s / uplink milliseconds and enters the receiver
+ * after s / downlink milliseconds, on top of the propagation delay of {@link MinDelayTransport}.
+ * Every node has one uplink and one downlink queue served first come first served,
+ * so concurrent uploads to the same aggregator wait for each other.
+ * The size of a {@link ModelMessage} is its serialized payload, other messages only cost the overhead.<br/>
+ * The downlink slot is reserved when the message is sent, i.e. messages are queued at the receiver
+ * in the order of sending instead of the order of arrival.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class BandwidthTransport extends MinDelayTransport {
+    /**
+     * Uplink bandwidth of every node in bytes per millisecond.
+     */
+    private static final String PAR_UPLINK = "uplink";
+    private final double uplink;
+
+    /**
+     * Downlink bandwidth of every node in bytes per millisecond, defaults to the uplink bandwidth.
+     */
+    private static final String PAR_DOWNLINK = "downlink";
+    private final double downlink;
+
+    /**
+     * Bytes added to every message for the headers, 0 by default.
+     */
+    private static final String PAR_OVERHEAD = "overhead";
+    private final int overhead;
+
+    /* time when the uplink and the downlink of a node get free, by node index */
+    private long[] uplinkFree = new long[0];
+    private long[] downlinkFree = new long[0];
+
+    public BandwidthTransport(String prefix) {
+        super(prefix);
+        uplink = Configuration.getDouble(prefix + "." + PAR_UPLINK);
+        downlink = Configuration.getDouble(prefix + "." + PAR_DOWNLINK, uplink);
+        overhead = Configuration.getInt(prefix + "." + PAR_OVERHEAD, 0);
+        if (uplink <= 0 || downlink <= 0) {
+            throw new RuntimeException("Exception occured in BandwidthTransport: bandwidth must be positive");
+        }
+    }
+
+    @Override
+    public void send(Node src, Node dest, Object msg, int pid) {
+        int from = src.getIndex();
+        int to = dest.getIndex();
+        long now = CommonState.getTime();
+        if (from == to) {
+            EDSimulator.add(0, msg, dest, pid);
+            return;
+        }
+        ensureCapacity(Math.max(from, to) + 1);
+        long bytes = overhead + (msg instanceof ModelMessage ? ((ModelMessage) msg).getPayloadSize() : 0);
+        long propagation = sampleDelay(src, dest);
+        if (propagation < 0) return;
+
+        // the sender pushes the message once its previous uploads are out
+        long upStart = Math.max(now, uplinkFree[from]);
+        long upEnd = upStart + transmissionTime(bytes, uplink);
+        uplinkFree[from] = upEnd;
+
+        // the first byte reaches the receiver after the propagation delay,
+        // the last one can not arrive before it left the sender
+        long downStart = Math.max(upStart + propagation, downlinkFree[to]);
+        long downEnd = Math.max(downStart + transmissionTime(bytes, downlink), upEnd + propagation);
+        downlinkFree[to] = downEnd;
+
+        EDSimulator.add(downEnd - now, msg, dest, pid);
+    }
+
+    private static long transmissionTime(long bytes, double bandwidth) {
+        return (long) Math.ceil(bytes / bandwidth);
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > uplinkFree.length) {
+            int capacity = Math.max(size, uplinkFree.length * 2);
+            uplinkFree = Arrays.copyOf(uplinkFree, capacity);
+            downlinkFree = Arrays.copyOf(downlinkFree, capacity);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package learning.transport;
 
-import learning.topology.TopoUtil;
+import learning.topology.DelayMatrix;
+import learning.topology.DelayOracle;
+import learning.utils.LongCounterMap;
 import peersim.config.Configuration;
-import peersim.core.Network;
+import peersim.core.CommonState;
 import peersim.core.Node;
 import peersim.edsim.EDSimulator;
 import peersim.transport.Transport;
@@ -10,34 +12,157 @@ import peersim.transport.Transport;
 /**
  * Gets the fastest message transmission time between two nodes
  * according to the node delay of the current network.
+ * Optionally every link adds a log-normal jitter to the delay, drops messages
+ * and holds messages back so that they overtake each other. The random decisions of
+ * a link come from its own SplitMix64 stream seeded by the simulation seed and the link,
+ * so a run is reproducible and the links do not depend on each other's traffic.
+ * Only the number of draws of every used link is kept.
  * @author sshpark
  * @date 19/2/2020
  */
 public class MinDelayTransport implements Transport {
+    /**
+     * Median of the jitter added to the delay in milliseconds, 0 (default) turns the jitter off.
+     */
+    private static final String PAR_JITTER = "jitter";
+    private final double jitter;
+
+    /**
+     * Standard deviation of the logarithm of the jitter, 1 by default.
+     */
+    private static final String PAR_SIGMA = "sigma";
+    private final double sigma;
+
+    /**
+     * Probability that a message is lost, 0 by default.
+     * The ETree and the federated protocols wait for the models of all selected nodes and reject it.
+     */
+    private static final String PAR_DROP = "drop";
+    private final double drop;
+
+    /**
+     * Probability that a message is held back by a uniform extra delay, 0 by default.
+     */
+    private static final String PAR_REORDER = "reorder";
+    private final double reorder;
+
+    /**
+     * Largest extra delay of a held back message in milliseconds,
+     * by default the minimum delay of the link.
+     */
+    private static final String PAR_REORDER_DELAY = "reorderDelay";
+    private final int reorderDelay;
+
+    private static final String PAR_PROTOCOL = "protocol";
+    private static final String PAR_TRANSPORT = "transport";
+
     private final String topoFilePath;
 
     /*@hidden */
-    private int[][] graph;
-    private int[][] minDelayMatrix;
+    private DelayMatrix minDelayMatrix;
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private final long seed;
+    /* number of random numbers drawn by every used link */
+    private final LongCounterMap linkDraws = new LongCounterMap();
 
     public MinDelayTransport(String prefix) {
         topoFilePath = Configuration.getString("TOPO_FILEPATH");
-        graph = TopoUtil.getGraph(Network.size(), topoFilePath);
-        minDelayMatrix = TopoUtil.generateMinDelayMatrix(graph);
+        minDelayMatrix = DelayOracle.getInstance(topoFilePath).getMinDelayMatrix();
+        jitter = Configuration.getDouble(prefix + "." + PAR_JITTER, 0);
+        sigma = Configuration.getDouble(prefix + "." + PAR_SIGMA, 1);
+        drop = Configuration.getDouble(prefix + "." + PAR_DROP, 0);
+        reorder = Configuration.getDouble(prefix + "." + PAR_REORDER, 0);
+        reorderDelay = Configuration.getInt(prefix + "." + PAR_REORDER_DELAY, -1);
+        seed = CommonState.r.getLastSeed();
     }
 
     @Override
     public void send(Node src, Node dest, Object msg, int pid) {
-        int delay = minDelayMatrix[src.getIndex()][dest.getIndex()];
+        long delay = sampleDelay(src, dest);
 //        System.out.println("From " + src.getIndex() + " to " + dest.getIndex() + ", time: " + delay);
-        EDSimulator.add(delay, msg, dest, pid);
+        if (delay >= 0) EDSimulator.add(delay, msg, dest, pid);
     }
 
     @Override
     public long getLatency(Node src, Node dest) {
+        return propagationDelay(src, dest);
+    }
+
+    /**
+     * Returns the minimum delay of the physical topology between two nodes.
+     *
+     * @param src sender
+     * @param dest receiver
+     * @return delay in milliseconds
+     */
+    protected int propagationDelay(Node src, Node dest) {
+        return minDelayMatrix.getDelay(src.getIndex(), dest.getIndex());
+    }
+
+    /**
+     * Draws the delay of one message: the minimum delay plus the jitter and the reordering delay
+     * of the link. Returns -1 if the message is dropped, which includes messages between nodes
+     * that can not reach each other.
+     *
+     * @param src sender
+     * @param dest receiver
+     * @return delay in milliseconds or -1
+     */
+    protected long sampleDelay(Node src, Node dest) {
+        int propagation = propagationDelay(src, dest);
+        if (propagation == DelayMatrix.UNREACHABLE) return -1;
+        if (jitter <= 0 && drop <= 0 && reorder <= 0) return propagation;
+
+        long link = LongCounterMap.linkKey(src.getIndex(), dest.getIndex());
+        long delay = propagation;
+        if (drop > 0 && nextDouble(link) < drop) return -1;
+        if (jitter > 0) {
+            // log-normal by Box-Muller, the heavy tail is capped so the sum stays far from overflowing
+            double u = 1 - nextDouble(link);
+            double gaussian = Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * nextDouble(link));
+            delay += Math.min(Math.round(jitter * Math.exp(sigma * gaussian)), Integer.MAX_VALUE);
+        }
+        if (reorder > 0 && nextDouble(link) < reorder) {
+            long maxExtra = reorderDelay >= 0 ? reorderDelay : propagation;
+            delay += (long) (nextDouble(link) * (maxExtra + 1));
+        }
+        return delay;
+    }
+
+    /**
+     * Returns the probability of loss of the transport a protocol sends through, following the transports
+     * that pass the messages on to another one, e.g. MessageCounterTransport.
+     *
+     * @param prefix prefix of the protocol
+     * @return probability of loss, 0 if no transport drops messages
+     */
+    public static double getDrop(String prefix) {
+        String name = Configuration.getString(prefix + "." + PAR_TRANSPORT, null);
+        // a wrapped transport names the next one the same way, the hops are bounded in case of a loop
+        for (int hop = 0; name != null && hop < 8; hop++) {
+            double drop = Configuration.getDouble(PAR_PROTOCOL + "." + name + "." + PAR_DROP, 0);
+            if (drop > 0) return drop;
+            name = Configuration.getString(PAR_PROTOCOL + "." + name + "." + PAR_TRANSPORT, null);
+        }
         return 0;
     }
 
+    /**
+     * Returns the next uniform number in [0, 1) of the SplitMix64 stream of the link,
+     * the n-th number of a link only depends on the seed, the link and n.
+     */
+    private double nextDouble(long link) {
+        long state = mix(seed + (link + 1) * GOLDEN) + linkDraws.add(link, 1) * GOLDEN;
+        return (mix(state) >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     @Override
     public Object clone() {
         return this;
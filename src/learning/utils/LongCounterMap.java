@@ -0,0 +1,119 @@
+package learning.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long keys to long counters, with linear probing.
+ * A key that was never added counts 0. The key -1 marks the free slots and can not be used,
+ * the keys of this project are node ids, node indices or links packed by {@link #linkKey}.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class LongCounterMap {
+    private static final long EMPTY = -1L;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private long[] keys = newKeys(64);
+    private long[] values = new long[64];
+    private int size = 0;
+
+    /**
+     * Packs a link into one key, both ends must be below 2^32.
+     *
+     * @param from sender
+     * @param to receiver
+     * @return key of the link
+     */
+    public static long linkKey(long from, long to) {
+        return (from << 32) | (to & 0xffffffffL);
+    }
+
+    /**
+     * @param key key
+     * @return counter of the key, 0 if it was never added
+     */
+    public long get(long key) {
+        int i = slot(key, keys);
+        return keys[i] == EMPTY ? 0 : values[i];
+    }
+
+    /**
+     * Adds the value to the counter of the key.
+     *
+     * @param key key, not -1
+     * @param value value to add
+     * @return the new counter of the key
+     */
+    public long add(long key, long value) {
+        if (key == EMPTY) throw new IllegalArgumentException("the key " + EMPTY + " is reserved");
+        int i = slot(key, keys);
+        if (keys[i] == EMPTY) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                i = slot(key, keys);
+            }
+            keys[i] = key;
+            size++;
+        }
+        values[i] += value;
+        return values[i];
+    }
+
+    /**
+     * @return number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the keys in no particular order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int k = 0;
+        for (long key : keys) {
+            if (key != EMPTY) result[k++] = key;
+        }
+        return result;
+    }
+
+    /**
+     * Forgets every key, the table keeps its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private static int slot(long key, long[] keys) {
+        int mask = keys.length - 1;
+        long h = key * GOLDEN;
+        int i = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = newKeys(oldKeys.length * 2);
+        values = new long[oldKeys.length * 2];
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = slot(oldKeys[j], keys);
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
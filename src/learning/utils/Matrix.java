@@ -330,6 +330,32 @@ public class Matrix implements Serializable {
         return result;
     }
 
+    /**
+     * Returns the reference of the matrix to which the specified matrix was added.
+     *
+     * @param matrix matrix to add
+     * @return reference of the sum
+     * @throws RuntimeException if the dimensions not matches
+     */
+    public Matrix addInPlace(Matrix matrix) {
+        if (numberOfRows != matrix.numberOfRows || numberOfColumns != matrix.numberOfColumns) {
+            throw new RuntimeException("The matrix with dimensions " + matrix.numberOfRows + "x" +
+                    matrix.numberOfColumns + " cannot add to the matrix with dimensions " + numberOfRows +
+                    "x" + numberOfColumns);
+        }
+        for (int i = 0; i < numberOfRows; i++) {
+            for (int j = 0; j < numberOfColumns; j++) {
+                double b = matrix.isTransposed ? matrix.matrix[j][i] : matrix.matrix[i][j];
+                if (isTransposed) {
+                    this.matrix[j][i] += b;
+                } else {
+                    this.matrix[i][j] += b;
+                }
+            }
+        }
+        return this;
+    }
+
     /**
      * Returns subtraction of the current and the specified matrices.
      *
@@ -0,0 +1,87 @@
+package learning.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs independent index ranges on the common fork/join pool.
+ * The size of the pool can be set by the system property
+ * java.util.concurrent.ForkJoinPool.common.parallelism.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class Parallel {
+
+    /**
+     * A piece of work over the index range [from, to).
+     */
+    public interface RangeTask {
+        void run(int from, int to);
+    }
+
+    /**
+     * @return number of worker threads
+     */
+    public static int parallelism() {
+        return ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    /**
+     * Splits [from, to) into chunks and runs the task on them in parallel,
+     * returning when every chunk has finished.
+     * The grain is chosen so that every worker gets a few chunks.
+     *
+     * @param from first index
+     * @param to index after the last one
+     * @param task work to be done
+     */
+    public static void forRange(int from, int to, RangeTask task) {
+        int grain = Math.max(1, (to - from) / (parallelism() * 8));
+        forRange(from, to, grain, task);
+    }
+
+    /**
+     * Splits [from, to) into chunks of at most grain indexes and runs the task on them in parallel,
+     * returning when every chunk has finished.
+     *
+     * @param from first index
+     * @param to index after the last one
+     * @param grain maximal chunk size
+     * @param task work to be done
+     */
+    public static void forRange(int from, int to, int grain, RangeTask task) {
+        if (to <= from) return;
+        if (to - from <= grain) {
+            task.run(from, to);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new RangeAction(from, to, grain, task));
+    }
+
+    private static class RangeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeTask task;
+
+        RangeAction(int from, int to, int grain, RangeTask task) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                task.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(from, mid, grain, task), new RangeAction(mid, to, grain, task));
+        }
+    }
+}
@@ -375,4 +375,24 @@ public class Utils {
     }
     return new ArrayList<>(Arrays.asList(result));
   }
+
+  /**
+   * Moves num distinct random values of values[0..len) to values[len-num..len) in place.
+   * It draws the same random numbers as {@link #randomArray(int, ArrayList)} and selects the same values,
+   * the i-th selected value ends up at len-1-i.
+   *
+   * @param num number of values to select
+   * @param values values, they are reordered
+   * @param len number of values to select from
+   */
+  public static void randomArray(int num, int[] values, int len) {
+    int index;
+    for (int i = 0; i < num; i++) {
+      index = CommonState.r.nextInt(len-i);
+
+      int temp = values[index];
+      values[index] = values[len-1-i];
+      values[len-1-i] = temp;
+    }
+  }
 }
@@ -0,0 +1,207 @@
+package tests;
+
+import learning.interfaces.Mergeable;
+import learning.interfaces.Model;
+import learning.interfaces.ModelAggregator;
+import learning.interfaces.ModelHolder;
+import learning.interfaces.ProbabilityModel;
+import learning.modelHolders.BoundedModelHolder;
+import learning.modelHolders.ModelHolderAggregator;
+import learning.models.LogisticRegression;
+import learning.models.MergeableLogisticRegression;
+import learning.models.SoftmaxRegression;
+import learning.utils.SparseVector;
+import peersim.core.CommonState;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Checks the running sum aggregators of the mergeable models: they agree with aggregateDefault
+ * on a holder of the same models, asking for the aggregate does not change the sum, clear()
+ * forgets the models and the aggregate is the average of the added models.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class AggregatorTest {
+    private static final int MODELS = 8;
+    private static final int FEATURES = 60;
+    private static final double EPS = 1e-9;
+
+    public static void main(String[] args) {
+        Checks.config();
+        CommonState.initializeRandom(17);
+        Random r = new Random(17);
+
+        ArrayList<SparseVector> probes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) probes.add(denseInstance(r));
+
+        ArrayList<MergeableLogisticRegression> logRegs = new ArrayList<>();
+        for (int m = 0; m < MODELS; m++) {
+            MergeableLogisticRegression model = new MergeableLogisticRegression();
+            for (int i = 0; i < 30; i++) model.update(sparseInstance(r), r.nextInt(2));
+            logRegs.add(model);
+        }
+        ArrayList<SoftmaxRegression> softmaxes = new ArrayList<>();
+        for (int m = 0; m < MODELS; m++) {
+            SoftmaxRegression model = new SoftmaxRegression();
+            for (int i = 0; i < 5; i++) model.update(denseInstance(r), r.nextInt(10));
+            softmaxes.add(model);
+        }
+
+        checkRunning("logistic regression", logRegs, probes);
+        checkRunning("softmax regression", softmaxes, probes);
+        checkIdentical("logistic regression", logRegs.get(0), probes);
+        checkIdentical("softmax regression", softmaxes.get(0), probes);
+        checkLogRegAverage(logRegs);
+        checkSoftmaxAverage(softmaxes, probes);
+        checkHolderCopies(logRegs.get(1), r);
+        checkGetAggregator(logRegs.get(0));
+        System.out.println("AggregatorTest: ok");
+    }
+
+    /**
+     * The running aggregate, read after every added model, equals aggregateDefault
+     * of a holder and an aggregator that is only read at the end; clear() starts over.
+     */
+    private static void checkRunning(String name, ArrayList<? extends Model> models, ArrayList<SparseVector> probes) {
+        ModelAggregator<Model> running = ModelHolderAggregator.getAggregator(new BoundedModelHolder(), models.get(0));
+        ModelAggregator<Model> once = ModelHolderAggregator.getAggregator(new BoundedModelHolder(), models.get(0));
+        ModelHolder holder = new BoundedModelHolder(MODELS);
+        for (int m = 0; m < models.size(); m++) {
+            running.add(models.get(m));
+            once.add(models.get(m));
+            holder.add(models.get(m));
+            Checks.check(running.size() == m + 1, name + ": size is " + running.size() + " after " + (m + 1) + " models");
+            Model aggregate = running.getAggregate();
+            checkSame(name + ", after " + (m + 1) + " models", aggregate, running.getAggregate(), probes, 0);
+        }
+        Model expected = defaultAggregate(models.get(0), holder);
+        checkSame(name + ", read on the way against aggregateDefault", running.getAggregate(), expected, probes, 0);
+        checkSame(name + ", read at the end against aggregateDefault", once.getAggregate(), expected, probes, 0);
+
+        running.clear();
+        Checks.check(running.size() == 0, name + ": size is " + running.size() + " after clear");
+        ModelAggregator<Model> fresh = ModelHolderAggregator.getAggregator(new BoundedModelHolder(), models.get(0));
+        for (int m = 2; m < 5; m++) {
+            running.add(models.get(m));
+            fresh.add(models.get(m));
+        }
+        checkSame(name + ", after clear", running.getAggregate(), fresh.getAggregate(), probes, 0);
+        System.out.println("AggregatorTest: " + name + " running aggregate ok");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Model defaultAggregate(Model model, ModelHolder holder) {
+        return ((Mergeable<Model>) model).aggregateDefault(holder);
+    }
+
+    /**
+     * The average of copies of one model predicts like the model.
+     */
+    private static void checkIdentical(String name, Model model, ArrayList<SparseVector> probes) {
+        ModelAggregator<Model> aggregator = ModelHolderAggregator.getAggregator(new BoundedModelHolder(), model);
+        for (int m = 0; m < MODELS; m++) aggregator.add((Model) model.clone());
+        checkSame(name + ", average of copies", aggregator.getAggregate(), model, probes, EPS);
+    }
+
+    /**
+     * The hyperplane of the aggregate is the average of the hyperplanes.
+     */
+    private static void checkLogRegAverage(ArrayList<MergeableLogisticRegression> models) {
+        ModelAggregator<MergeableLogisticRegression> aggregator = models.get(0).getAggregator();
+        SparseVector sum = new SparseVector();
+        for (MergeableLogisticRegression model : models) {
+            aggregator.add(model);
+            sum.add(model.getWeight());
+        }
+        SparseVector weight = aggregator.getAggregate().getWeight();
+        for (int i = 0; i < FEATURES; i++) {
+            double expected = sum.get(i) / models.size();
+            Checks.check(Math.abs(weight.get(i) - expected) <= EPS, "logistic regression: averaged weight " + i
+                    + " is " + weight.get(i) + " instead of " + expected);
+        }
+        System.out.println("AggregatorTest: logistic regression average ok");
+    }
+
+    /**
+     * The outputs of the network are linear in the weights and the biases, so the log ratio
+     * of two class probabilities of the aggregate is the average of the log ratios of the models.
+     */
+    private static void checkSoftmaxAverage(ArrayList<SoftmaxRegression> models, ArrayList<SparseVector> probes) {
+        ModelAggregator<SoftmaxRegression> aggregator = models.get(0).getAggregator();
+        for (SoftmaxRegression model : models) aggregator.add(model);
+        SoftmaxRegression aggregate = aggregator.getAggregate();
+        for (SparseVector probe : probes) {
+            double[] p = aggregate.distributionForInstance(probe);
+            double[] expected = new double[p.length];
+            for (SoftmaxRegression model : models) {
+                double[] q = model.distributionForInstance(probe);
+                for (int c = 1; c < q.length; c++) expected[c] += Math.log(q[c] / q[0]) / models.size();
+            }
+            for (int c = 1; c < p.length; c++) {
+                double ratio = Math.log(p[c] / p[0]);
+                Checks.check(Math.abs(ratio - expected[c]) <= EPS * Math.max(1.0, Math.abs(expected[c])),
+                        "softmax regression: log ratio of class " + c + " is " + ratio + " instead of " + expected[c]);
+            }
+        }
+        System.out.println("AggregatorTest: softmax regression average ok");
+    }
+
+    /**
+     * The holder fallback keeps copies, a model changed after it was added does not change the aggregate.
+     */
+    private static void checkHolderCopies(MergeableLogisticRegression model, Random r) {
+        ModelHolderAggregator<MergeableLogisticRegression> aggregator =
+                new ModelHolderAggregator<MergeableLogisticRegression>(new BoundedModelHolder(MODELS), model);
+        aggregator.add(model);
+        SparseVector before = new SparseVector(aggregator.getAggregate().getWeight());
+        for (int i = 0; i < 10; i++) model.update(sparseInstance(r), r.nextInt(2));
+        Checks.check(!model.getWeight().equals(before), "holder fallback: the update did not change the model");
+        Checks.check(aggregator.getAggregate().getWeight().equals(before),
+                "holder fallback: the aggregate follows a model changed after it was added");
+        Checks.check(aggregator.size() == 1, "holder fallback: size is " + aggregator.size());
+        aggregator.clear();
+        Checks.check(aggregator.size() == 0, "holder fallback: size is " + aggregator.size() + " after clear");
+        System.out.println("AggregatorTest: holder fallback ok");
+    }
+
+    private static void checkGetAggregator(MergeableLogisticRegression model) {
+        ModelAggregator<Model> aggregator = ModelHolderAggregator.getAggregator(new BoundedModelHolder(), model);
+        Checks.check(!(aggregator instanceof ModelHolderAggregator), "the running aggregator is not used");
+        boolean thrown = false;
+        try {
+            ModelHolderAggregator.getAggregator(new BoundedModelHolder(), new LogisticRegression());
+        } catch (RuntimeException e) {
+            thrown = true;
+        }
+        Checks.check(thrown, "a model that is not mergeable gets an aggregator");
+    }
+
+    private static void checkSame(String name, Model a, Model b, ArrayList<SparseVector> probes, double eps) {
+        for (SparseVector probe : probes) {
+            double[] p = ((ProbabilityModel) a).distributionForInstance(probe);
+            double[] q = ((ProbabilityModel) b).distributionForInstance(probe);
+            for (int c = 0; c < p.length; c++) {
+                Checks.check(Math.abs(p[c] - q[c]) <= eps, name + ": probability of class " + c
+                        + " is " + p[c] + " instead of " + q[c]);
+            }
+        }
+    }
+
+    /**
+     * Every feature is set, the softmax model reads the instance as a dense array.
+     */
+    private static SparseVector denseInstance(Random r) {
+        double[] values = new double[FEATURES];
+        for (int i = 0; i < FEATURES; i++) values[i] = r.nextGaussian() + (i % 2 == 0 ? 2.0 : -2.0);
+        return new SparseVector(values);
+    }
+
+    private static SparseVector sparseInstance(Random r) {
+        SparseVector instance = new SparseVector();
+        for (int i = 0; i < 10; i++) instance.put(r.nextInt(FEATURES), r.nextGaussian());
+        return instance;
+    }
+}
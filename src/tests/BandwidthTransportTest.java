@@ -0,0 +1,157 @@
+package tests;
+
+import learning.messages.ModelMessage;
+import learning.modelHolders.BoundedModelHolder;
+import learning.models.MergeableLogisticRegression;
+import learning.utils.SparseVector;
+import peersim.config.Configuration;
+import peersim.core.CommonState;
+import peersim.core.Control;
+import peersim.core.Network;
+import peersim.core.Node;
+import peersim.edsim.EDProtocol;
+import peersim.edsim.EDSimulator;
+import peersim.transport.Transport;
+
+import java.util.ArrayList;
+import java.util.Properties;
+
+/**
+ * Checks the link queues of the bandwidth transport in a small simulation: two workers upload
+ * a model to one aggregator at the same time, the first upload arrives after the propagation delay
+ * and its uplink transmission, the second one waits for the downlink of the aggregator.
+ * Also checks that the payload size of a model message follows changes of its models.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class BandwidthTransportTest {
+    /* bytes per millisecond, slow enough that the transmission outlasts every propagation delay */
+    private static final double UPLINK = 0.1;
+    private static final double DOWNLINK = 0.2;
+    private static final int AGGREGATOR = 0;
+    private static final int[] WORKERS = {1, 2};
+
+    private static final ArrayList<Long> arrivals = new ArrayList<>();
+    private static long bytes;
+    private static final long[] propagation = new long[WORKERS.length];
+
+    public static void main(String[] args) {
+        // the protocol ids are assigned when the configuration is set, so it is set once it is complete
+        Properties config = new Properties();
+        config.put("TOPO_FILEPATH", "res/db/data100.in");
+        config.put("random.seed", "1234567890");
+        config.put("simulation.endtime", "1000000");
+        config.put("network.size", "100");
+        config.put("protocol.transport", "learning.transport.BandwidthTransport");
+        config.put("protocol.transport.uplink", Double.toString(UPLINK));
+        config.put("protocol.transport.downlink", Double.toString(DOWNLINK));
+        config.put("protocol.receiver", Receiver.class.getName());
+        config.put("protocol.receiver.transport", "transport");
+        config.put("init.upload", Upload.class.getName());
+        config.put("init.upload.protocol", "receiver");
+        Configuration.setConfig(config);
+        checkPayloadSize();
+        CommonState.initializeRandom(Configuration.getLong("random.seed"));
+        EDSimulator.nextExperiment();
+
+        Checks.check(arrivals.size() == 2, arrivals.size() + " uploads arrived instead of 2");
+        long up = (long) Math.ceil(bytes / UPLINK);
+        long down = (long) Math.ceil(bytes / DOWNLINK);
+        Checks.check(up > propagation[0] && up > propagation[1], "the transmission is shorter than the propagation");
+        long first = propagation[0] + up;
+        Checks.check(arrivals.get(0) == first, "the first upload arrived at " + arrivals.get(0) + " instead of "
+                + first + " (propagation " + propagation[0] + ", " + bytes + " bytes)");
+        long second = first + down;
+        Checks.check(arrivals.get(1) == second, "the second upload arrived at " + arrivals.get(1) + " instead of "
+                + second + " behind the first one");
+        System.out.println("BandwidthTransportTest: link queues ok");
+    }
+
+    /**
+     * The cached size is dropped when a model is replaced, added or changed in place.
+     */
+    private static void checkPayloadSize() {
+        MergeableLogisticRegression model = new MergeableLogisticRegression();
+        BoundedModelHolder holder = new BoundedModelHolder(4);
+        holder.add(model);
+        ModelMessage msg = new ModelMessage(null, holder);
+        int size = msg.getPayloadSize();
+        Checks.check(size > 0 && msg.getPayloadSize() == size, "the payload size is " + size);
+
+        msg.getModel(0).update(instance(0, 200), 1);
+        int updated = msg.getPayloadSize();
+        Checks.check(updated > size, "the payload size is " + updated + " after the model grew, before " + size);
+
+        MergeableLogisticRegression bigger = (MergeableLogisticRegression) model.clone();
+        bigger.update(instance(0, 1000), 1);
+        msg.setModel(0, bigger);
+        int replaced = msg.getPayloadSize();
+        Checks.check(replaced > updated, "the payload size is " + replaced + " after a bigger model was set, before " + updated);
+
+        msg.add(bigger);
+        int added = msg.getPayloadSize();
+        Checks.check(added > replaced, "the payload size is " + added + " after a model was added, before " + replaced);
+        msg.clear();
+        Checks.check(msg.getPayloadSize() < size, "the payload size is " + msg.getPayloadSize() + " after clear");
+        System.out.println("BandwidthTransportTest: payload size ok");
+    }
+
+    private static SparseVector instance(int from, int to) {
+        SparseVector instance = new SparseVector();
+        for (int i = from; i < to; i++) instance.put(i, 1.0);
+        return instance;
+    }
+
+    /**
+     * Sends the same model from every worker to the aggregator at time 0.
+     */
+    public static class Upload implements Control {
+        private static final String PAR_PROT = "protocol";
+        private final int pid;
+
+        public Upload(String prefix) {
+            pid = Configuration.getPid(prefix + "." + PAR_PROT);
+        }
+
+        @Override
+        public boolean execute() {
+            Node aggregator = Network.get(AGGREGATOR);
+            Transport transport = (Transport) aggregator.getProtocol(((Receiver) aggregator.getProtocol(pid)).transportPid);
+            MergeableLogisticRegression model = new MergeableLogisticRegression();
+            model.update(instance(0, 100), 1);
+            BoundedModelHolder holder = new BoundedModelHolder(1);
+            holder.add(model);
+            for (int w = 0; w < WORKERS.length; w++) {
+                Node worker = Network.get(WORKERS[w]);
+                ModelMessage msg = new ModelMessage(worker, holder);
+                bytes = msg.getPayloadSize();
+                propagation[w] = transport.getLatency(worker, aggregator);
+                transport.send(worker, aggregator, msg, pid);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Records the arrival times of the messages.
+     */
+    public static class Receiver implements EDProtocol {
+        private static final String PAR_TRANSPORT = "transport";
+        private final int transportPid;
+
+        public Receiver(String prefix) {
+            transportPid = Configuration.getPid(prefix + "." + PAR_TRANSPORT);
+        }
+
+        @Override
+        public void processEvent(Node node, int pid, Object event) {
+            arrivals.add(CommonState.getTime());
+        }
+
+        @Override
+        public Object clone() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package tests;
+
+import learning.topology.CSRGraph;
+import learning.topology.DelayMatrix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Checks that a topology saved in the binary format is read back with the same links,
+ * also for another number of nodes, and that truncated or foreign files are rejected.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class CSRGraphBinaryTest {
+    private static final int N = 100;
+    private static final String PATH = "res/db/data100.in";
+
+    public static void main(String[] args) throws IOException {
+        CSRGraph text = CSRGraph.load(N, PATH);
+        File file = File.createTempFile("data100", ".ecsr");
+        File broken = File.createTempFile("data100", ".broken");
+        try {
+            Checks.check(!CSRGraph.isBinary(PATH), PATH + " is taken for a binary topology");
+            text.saveBinary(file.getPath());
+            Checks.check(CSRGraph.isBinary(file.getPath()), "the saved topology is not binary");
+            compare("binary", CSRGraph.load(N, file.getPath()), text, N);
+            // more nodes than were saved, the graph is rebuilt from its links
+            compare("binary with more nodes", CSRGraph.load(N + 20, file.getPath()), text, N + 20);
+
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            Files.write(broken.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+            checkRejected("truncated", broken);
+
+            byte[] foreign = bytes.clone();
+            foreign[0] ^= 0xff;
+            Files.write(broken.toPath(), foreign);
+            Checks.check(!CSRGraph.isBinary(broken.getPath()), "a file with another magic is taken for binary");
+            checkRejected("wrong magic", broken);
+
+            // the version follows the magic
+            Files.write(broken.toPath(), bytes);
+            RandomAccessFile raf = new RandomAccessFile(broken, "rw");
+            try {
+                raf.seek(4);
+                raf.write(99);
+            } finally {
+                raf.close();
+            }
+            checkRejected("wrong version", broken);
+        } finally {
+            file.delete();
+            broken.delete();
+        }
+        System.out.println("CSRGraphBinaryTest: " + PATH + " ok");
+    }
+
+    private static void compare(String name, CSRGraph graph, CSRGraph expected, int n) {
+        Checks.check(graph.size() == n, name + ": " + graph.size() + " nodes instead of " + n);
+        Checks.check(graph.edgeCount() == expected.edgeCount(), name + ": " + graph.edgeCount()
+                + " link entries instead of " + expected.edgeCount());
+        for (int u = 0; u < n; u++) {
+            for (int v = 0; v < n; v++) {
+                int delay = u < N && v < N ? expected.getDelay(u, v) : u == v ? 0 : DelayMatrix.UNREACHABLE;
+                Checks.check(graph.getDelay(u, v) == delay, name + ": link " + u + "-" + v
+                        + " has delay " + graph.getDelay(u, v) + " instead of " + delay);
+            }
+        }
+    }
+
+    private static void checkRejected(String name, File file) {
+        boolean thrown = false;
+        try {
+            CSRGraph.loadBinary(N, file.getPath());
+        } catch (RuntimeException e) {
+            thrown = true;
+        }
+        Checks.check(thrown, name + " binary topology is accepted");
+    }
+}
@@ -0,0 +1,68 @@
+package tests;
+
+import peersim.config.Configuration;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Helpers of the regression checks in this package. Every check is a main that throws
+ * at the first mismatch, the regression target of build.xml runs them from the project directory.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+final class Checks {
+    private static Properties config;
+
+    private Checks() {
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new RuntimeException("Check failed: " + message);
+        }
+    }
+
+    /**
+     * Returns the properties behind Configuration, they are set on the first call.
+     * Configuration reads the properties when it is asked, so values put later are seen too.
+     *
+     * @return configuration properties
+     */
+    static Properties config() {
+        if (config == null) {
+            config = new Properties();
+            Configuration.setConfig(config);
+        }
+        return config;
+    }
+
+    /**
+     * Writes a small data set of two separable classes in the SVMlight format,
+     * for the learning protocols that read their training and evaluation files.
+     *
+     * @param file file to write
+     * @param lines number of instances
+     * @param seed seed of the features
+     */
+    static void writeData(File file, int lines, long seed) throws IOException {
+        Random r = new Random(seed);
+        FileWriter writer = new FileWriter(file);
+        try {
+            for (int l = 0; l < lines; l++) {
+                int label = l % 2;
+                writer.write(Integer.toString(label));
+                for (int i = 1; i <= 5; i++) {
+                    writer.write(" " + i + ":" + (r.nextGaussian() + (label == 1 ? 1.0 : -1.0)));
+                }
+                writer.write("\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
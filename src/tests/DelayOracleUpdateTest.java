@@ -0,0 +1,112 @@
+package tests;
+
+import learning.topology.CSRGraph;
+import learning.topology.DelayMatrix;
+import learning.topology.DelayOracle;
+import learning.topology.ShortestPaths;
+import learning.topology.TriangularDelayMatrix;
+
+import java.util.Random;
+
+/**
+ * Checks the incremental update of the minimum delays after link changes against a full
+ * recomputation, for every DELAY_ORACLE mode: delays that grow (beyond the byte width of the
+ * compact mode too), delays that shrink, failed links (a node cut off from the network) and
+ * links that are restored.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class DelayOracleUpdateTest {
+    private static final int N = 100;
+    private static final int CHANGES = 30;
+
+    public static void main(String[] args) {
+        // oracles are shared per file path, so every mode reads the file by another path
+        check("dense", "res/db/data100.in");
+        check("compact", "./res/db/data100.in");
+        check("lazy", "res/db/../db/data100.in");
+    }
+
+    private static void check(String mode, String path) {
+        Checks.config().put("DELAY_ORACLE", mode);
+        Checks.config().put("DELAY_CACHE_ROWS", "16");
+        DelayOracle oracle = DelayOracle.getInstance(N, path);
+        DelayMatrix matrix = oracle.getMinDelayMatrix();
+        CSRGraph reference = CSRGraph.load(N, "res/db/data100.in");
+        compare(mode, "initial", matrix, reference);
+
+        Random r = new Random(mode.hashCode());
+        for (int c = 0; c < CHANGES; c++) {
+            int a = r.nextInt(N);
+            int pos = reference.rowStart(a) + r.nextInt(reference.degree(a));
+            int b = reference.target(pos);
+            int old = reference.delay(pos);
+            int delay;
+            switch (c % 3) {
+                case 0:
+                    delay = old * 3 + 300;
+                    break;
+                case 1:
+                    delay = Math.max(1, old / 4);
+                    break;
+                default:
+                    delay = DelayMatrix.UNREACHABLE;
+            }
+            change(oracle, reference, a, b, delay);
+            compare(mode, "link " + a + "-" + b + " from " + old + " to " + delay, matrix, reference);
+            if (delay == DelayMatrix.UNREACHABLE) {
+                change(oracle, reference, a, b, old);
+                compare(mode, "link " + a + "-" + b + " restored to " + old, matrix, reference);
+            }
+        }
+
+        // fail every link of the node with the fewest links
+        int node = 0;
+        for (int u = 1; u < N; u++) {
+            if (reference.degree(u) < reference.degree(node)) node = u;
+        }
+        int degree = reference.degree(node);
+        int[] neighbours = new int[degree];
+        int[] delays = new int[degree];
+        for (int i = 0; i < degree; i++) {
+            neighbours[i] = reference.target(reference.rowStart(node) + i);
+            delays[i] = reference.delay(reference.rowStart(node) + i);
+            change(oracle, reference, node, neighbours[i], DelayMatrix.UNREACHABLE);
+        }
+        compare(mode, "node " + node + " cut off", matrix, reference);
+        for (int t = 0; t < N; t++) {
+            Checks.check(t == node || matrix.getDelay(node, t) == DelayMatrix.UNREACHABLE,
+                    mode + ": cut off node " + node + " reaches " + t);
+        }
+        // every path of the node becomes longer than the 1 byte delays hold
+        for (int i = 0; i < degree; i++) {
+            change(oracle, reference, node, neighbours[i], delays[i] + 300);
+        }
+        compare(mode, "node " + node + " slowed down", matrix, reference);
+        if (matrix instanceof TriangularDelayMatrix) {
+            Checks.check(((TriangularDelayMatrix) matrix).getDelayBytes() > 1, mode + ": delays are not widened");
+        }
+        for (int i = 0; i < degree; i++) {
+            change(oracle, reference, node, neighbours[i], delays[i]);
+        }
+        compare(mode, "node " + node + " restored", matrix, reference);
+        System.out.println("DelayOracleUpdateTest: " + mode + " ok");
+    }
+
+    private static void change(DelayOracle oracle, CSRGraph reference, int a, int b, int delay) {
+        reference.setDelay(a, b, delay);
+        oracle.setLinkDelay(a, b, delay);
+    }
+
+    private static void compare(String mode, String step, DelayMatrix matrix, CSRGraph reference) {
+        int[][] expected = ShortestPaths.allPairs(reference);
+        for (int s = 0; s < N; s++) {
+            for (int t = 0; t < N; t++) {
+                int delay = matrix.getDelay(s, t);
+                Checks.check(delay == expected[s][t], mode + ", " + step + ": delay " + s + "->" + t
+                        + " is " + delay + " instead of " + expected[s][t]);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package tests;
+
+import learning.node.ETreeNode;
+
+import java.util.Arrays;
+
+/**
+ * Checks the primitive array bookkeeping of the parents and children of an ETree node
+ * against the behaviour of the former list based node.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class ETreeNodeTest {
+    private static final int LAYERS = 3;
+
+    public static void main(String[] args) {
+        Checks.config().put("LAYERS", Integer.toString(LAYERS));
+        checkParents();
+        checkChildren();
+        checkClone();
+        System.out.println("ETreeNodeTest: ok");
+    }
+
+    private static void checkParents() {
+        ETreeNode node = new ETreeNode("node");
+        node.addParentNode(10);
+        node.addParentNode(11);
+        node.addParentNode(12);
+        // one parent more than the layers, the array grows
+        node.addParentNode(13);
+        for (int layer = 0; layer < 4; layer++) {
+            Checks.check(node.getParentNode(layer) == 10 + layer, "parent of layer " + layer
+                    + " is " + node.getParentNode(layer));
+        }
+        // the layer right above the known ones answers the topmost parent
+        Checks.check(node.getParentNode(4) == 13, "parent above the top is " + node.getParentNode(4));
+        checkThrows(node, 5);
+
+        node.setParentNode(1, 21);
+        Checks.check(node.getParentNode(1) == 21, "parent of layer 1 is not replaced");
+        node.trimParentNodes(2);
+        Checks.check(node.getParentNode(1) == 21 && node.getParentNode(2) == 21,
+                "parents after trimming to 2 layers: " + node.getParentNode(1) + ", " + node.getParentNode(2));
+        checkThrows(node, 3);
+        node.setParentNode(2, 32);
+        Checks.check(node.getParentNode(2) == 32, "parent appended after trimming is " + node.getParentNode(2));
+        boolean thrown = false;
+        try {
+            node.setParentNode(4, 40);
+        } catch (IndexOutOfBoundsException e) {
+            thrown = true;
+        }
+        Checks.check(thrown, "a parent two layers above the known ones is accepted");
+
+        ETreeNode empty = new ETreeNode("node");
+        checkThrows(empty, 0);
+    }
+
+    private static void checkThrows(ETreeNode node, int layer) {
+        boolean thrown = false;
+        try {
+            node.getParentNode(layer);
+        } catch (IndexOutOfBoundsException e) {
+            thrown = true;
+        }
+        Checks.check(thrown, "parent of layer " + layer + " is answered");
+    }
+
+    private static void checkChildren() {
+        ETreeNode node = new ETreeNode("node");
+        for (int id = 0; id < 10; id++) node.addChildNode(1, 100 + id);
+        // layers above the last one are ignored
+        node.addChildNode(LAYERS, 1);
+        checkChildren(node, 1, new int[]{100, 101, 102, 103, 104, 105, 106, 107, 108, 109});
+        checkChildren(node, 0, new int[0]);
+
+        int[] copy = node.getChildNodes(1);
+        copy[0] = -1;
+        Checks.check(node.getChildNode(1, 0) == 100, "getChildNodes does not return a copy");
+
+        Checks.check(node.removeChildNode(1, 100), "first child is not removed");
+        Checks.check(node.removeChildNode(1, 105), "middle child is not removed");
+        Checks.check(node.removeChildNode(1, 109), "last child is not removed");
+        Checks.check(!node.removeChildNode(1, 105), "a removed child is removed again");
+        Checks.check(!node.removeChildNode(0, 101), "a child of another layer is removed");
+        checkChildren(node, 1, new int[]{101, 102, 103, 104, 106, 107, 108});
+
+        node.replaceChildNode(1, 104, 200);
+        node.replaceChildNode(1, 999, 201);
+        checkChildren(node, 1, new int[]{101, 102, 103, 200, 106, 107, 108});
+        node.addChildNode(1, 202);
+        checkChildren(node, 1, new int[]{101, 102, 103, 200, 106, 107, 108, 202});
+
+        int[] ids = {7, 8, 9};
+        node.setChildNodes(2, ids);
+        ids[0] = -1;
+        checkChildren(node, 2, new int[]{7, 8, 9});
+        node.addChildNode(2, 10);
+        checkChildren(node, 2, new int[]{7, 8, 9, 10});
+
+        node.clearChildNodes(1);
+        checkChildren(node, 1, new int[0]);
+        node.addChildNode(1, 300);
+        checkChildren(node, 1, new int[]{300});
+        checkChildren(node, 2, new int[]{7, 8, 9, 10});
+    }
+
+    private static void checkChildren(ETreeNode node, int layer, int[] expected) {
+        int[] children = node.getChildNodes(layer);
+        Checks.check(Arrays.equals(children, expected), "children of layer " + layer + " are "
+                + Arrays.toString(children) + " instead of " + Arrays.toString(expected));
+        Checks.check(node.getChildCount(layer) == expected.length, "layer " + layer + " has "
+                + node.getChildCount(layer) + " children instead of " + expected.length);
+        for (int i = 0; i < expected.length; i++) {
+            Checks.check(node.getChildNode(layer, i) == expected[i], "child " + i + " of layer " + layer
+                    + " is " + node.getChildNode(layer, i));
+        }
+    }
+
+    private static void checkClone() {
+        ETreeNode node = new ETreeNode("node");
+        node.addParentNode(1);
+        node.addChildNode(0, 2);
+        ETreeNode clone = (ETreeNode) node.clone();
+        checkThrows(clone, 0);
+        checkChildren(clone, 0, new int[0]);
+        clone.addParentNode(3);
+        clone.addChildNode(0, 4);
+        Checks.check(node.getParentNode(0) == 1, "the clone shares the parents");
+        checkChildren(node, 0, new int[]{2});
+    }
+}
@@ -0,0 +1,295 @@
+package tests;
+
+import learning.messages.ActiveThreadMessage;
+import learning.messages.MessageUp;
+import learning.modelHolders.BoundedModelHolder;
+import learning.node.ETreeNode;
+import learning.protocols.ETreeLearningProtocol;
+import peersim.config.Configuration;
+import peersim.core.CommonState;
+import peersim.core.Control;
+import peersim.core.Network;
+import peersim.core.Node;
+import peersim.edsim.EDSimulator;
+import peersim.transport.Transport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Properties;
+
+/**
+ * Checks the pipelined ETree epochs in a small simulation of three layers: every worker trains once
+ * in every round of its aggregator, an aggregator of the middle layer does at most ratio + staleness
+ * aggregations until the model of the root comes down and its workers do not train meanwhile,
+ * the uploads sent before an epoch restart are dropped, and a waiting subtree neither trains nor aggregates
+ * until the model of the root comes down.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class ETreePipelineTest {
+    private static final int N = 100;
+    private static final int LAYERS = 3;
+    private static final int RATIO = 2;
+    private static final int STALENESS = 1;
+    private static final String PID = "learningProtocol";
+
+    /* uploads of the workers, by the time they were sent */
+    private static final ArrayList<MessageUp> uploads = new ArrayList<>();
+    /* worker and round of every upload */
+    private static final HashSet<Long> trained = new HashSet<>();
+    private static int waiting = 0;
+    private static int rootAggregations = 0;
+
+    public static void main(String[] args) throws IOException {
+        File dir = Files.createTempDirectory("pipeline").toFile();
+        File train = new File(dir, "train.dat");
+        File eval = new File(dir, "eval.dat");
+        File delays = new File(dir, "delay_etree.txt");
+        try {
+            Checks.writeData(train, 20, 1);
+            Checks.writeData(eval, 10, 2);
+            configure(train, eval, delays);
+            CommonState.initializeRandom(Configuration.getLong("random.seed"));
+            EDSimulator.nextExperiment();
+
+            int pid = Configuration.lookupPid(PID);
+            ArrayList<Integer> aggregators = ETreeLearningProtocol.getLayersNodeID().get(1);
+            Checks.check(rootAggregations > 5, "the root aggregated " + rootAggregations + " times");
+            Checks.check(waiting > 0, "no aggregator waited for the model of the root");
+            Checks.check(trained.size() > 5 * N, "the workers trained " + trained.size() + " times");
+            for (int id : aggregators) {
+                int count = protocol(id, pid).getAggregateCount(1);
+                Checks.check(count > RATIO + STALENESS, "aggregator " + id + " aggregated " + count + " times");
+            }
+            System.out.println("ETreePipelineTest: " + trained.size() + " trainings, " + rootAggregations
+                    + " root aggregations, staleness ok");
+
+            checkWaiting(pid, checkRestart(pid));
+        } finally {
+            train.delete();
+            eval.delete();
+            delays.delete();
+            dir.delete();
+        }
+        System.out.println("ETreePipelineTest: ok");
+    }
+
+    /**
+     * The protocol ids are assigned when the configuration is set, so it is set once it is complete.
+     */
+    private static void configure(File train, File eval, File delays) {
+        Properties config = new Properties();
+        config.put("TOPO_FILEPATH", "res/db/data100.in");
+        config.put("DELAY_OUTPUT_FILEPATH", delays.getPath());
+        config.put("LAYERS", Integer.toString(LAYERS));
+        config.put("REGULARIZATION", "0.01");
+        config.put("random.seed", "1234567890");
+        config.put("simulation.endtime", "20000");
+        config.put("network.size", Integer.toString(N));
+        config.put("network.node", "learning.node.ETreeNode");
+        config.put("protocol.overlay", "peersim.core.IdleProtocol");
+        config.put("protocol.transport", "learning.transport.MinDelayTransport");
+        config.put("protocol.recorder", Recorder.class.getName());
+        config.put("protocol.recorder.transport", "transport");
+        config.put("protocol." + PID, "learning.protocols.ETreeLearningProtocol");
+        config.put("protocol." + PID + ".transport", "recorder");
+        config.put("protocol." + PID + ".layers", Integer.toString(LAYERS));
+        config.put("protocol." + PID + ".ratios", "1," + RATIO + ",1");
+        config.put("protocol." + PID + ".recvPercent", "1.0");
+        config.put("protocol." + PID + ".pipeline", "true");
+        config.put("protocol." + PID + ".staleness", Integer.toString(STALENESS));
+        config.put("protocol." + PID + ".modelHolderName", "learning.modelHolders.BoundedModelHolder");
+        config.put("protocol." + PID + ".modelName", "learning.models.MergeableLogisticRegression");
+        config.put("protocol." + PID + ".trainingFile", train.getPath());
+        config.put("protocol." + PID + ".evaluationFile", eval.getPath());
+        config.put("init.0tree", "learning.topology.ETreeLogicalTopology");
+        config.put("init.0tree.layers", Integer.toString(LAYERS));
+        config.put("init.0tree.recvPercent", "1.0");
+        config.put("init.0tree.groups", "10,1,1");
+        config.put("init.0tree.protocol", "overlay");
+        config.put("init.1delays", "learning.controls.initializers.SetMinDelayMatrixForProtocol");
+        config.put("init.1delays.protocol", PID);
+        config.put("init.2start", "learning.controls.initializers.StartETreeMessageInitializer");
+        config.put("init.2start.protocol", PID);
+        config.put("control.staleness", Staleness.class.getName());
+        config.put("control.staleness.protocol", PID);
+        config.put("control.staleness.step", "1");
+        Configuration.setConfig(config);
+    }
+
+    /**
+     * After an epoch restart the aggregator drops an upload of the earlier round: it aggregates
+     * only when every child sent a model in the new round.
+     */
+    private static int checkRestart(int pid) {
+        int aggregatorId = -1;
+        MessageUp old = null;
+        for (int i = uploads.size() - 1; i >= 0 && old == null; i--) {
+            MessageUp msg = uploads.get(i);
+            int parent = ((ETreeNode) msg.getSource()).getParentNode(0);
+            if (msg.getSource().getIndex() != parent && ((ETreeNode) Network.get(parent)).getChildCount(1) > 2) {
+                old = msg;
+                aggregatorId = parent;
+            }
+        }
+        Checks.check(old != null, "restart: no upload to use");
+        Node aggregator = Network.get(aggregatorId);
+        ETreeLearningProtocol aggregatorPro = protocol(aggregatorId, pid);
+
+        ETreeLearningProtocol.restartEpoch(pid);
+        int count = aggregatorPro.getAggregateCount(1);
+        uploads.clear();
+        for (int child : ((ETreeNode) aggregator).getChildNodes(1)) {
+            if (child != old.getSource().getIndex()) {
+                protocol(child, pid).processEvent(Network.get(child), pid, ActiveThreadMessage.getInstance());
+            }
+        }
+        aggregatorPro.processEvent(aggregator, pid, old);
+        for (MessageUp msg : new ArrayList<>(uploads)) aggregatorPro.processEvent(aggregator, pid, msg);
+        Checks.check(aggregatorPro.getAggregateCount(1) == count, "restart: aggregator " + aggregatorId
+                + " aggregated an upload sent before the restart");
+
+        uploads.clear();
+        Node source = old.getSource();
+        protocol(source.getIndex(), pid).processEvent(source, pid, ActiveThreadMessage.getInstance());
+        Checks.check(uploads.size() == 1, "restart: worker " + source.getIndex() + " sent " + uploads.size() + " models");
+        aggregatorPro.processEvent(aggregator, pid, uploads.get(0));
+        Checks.check(aggregatorPro.getAggregateCount(1) == count + 1, "restart: aggregator " + aggregatorId
+                + " did not aggregate the models of the new round");
+        System.out.println("ETreePipelineTest: restart ok");
+        return aggregatorId;
+    }
+
+    /**
+     * Runs the rounds of the aggregator by hand until it waits for the model of the root: a late start
+     * does not train and late uploads are dropped until the root sends its model down.
+     * The aggregator aggregated once since the restart.
+     */
+    private static void checkWaiting(int pid, int aggregatorId) {
+        Node aggregator = Network.get(aggregatorId);
+        ETreeLearningProtocol aggregatorPro = protocol(aggregatorId, pid);
+        int[] children = ((ETreeNode) aggregator).getChildNodes(1);
+        MessageUp last = null;
+        int rounds = 1;
+        for (; rounds < RATIO + STALENESS + 1 && !aggregatorPro.hasAggregated(1); rounds++) {
+            uploads.clear();
+            for (int child : children) {
+                protocol(child, pid).processEvent(Network.get(child), pid, ActiveThreadMessage.getInstance());
+            }
+            Checks.check(uploads.size() == children.length, "waiting: " + uploads.size() + " of "
+                    + children.length + " workers trained");
+            for (MessageUp msg : new ArrayList<>(uploads)) aggregatorPro.processEvent(aggregator, pid, msg);
+            last = uploads.get(0);
+        }
+        Checks.check(aggregatorPro.hasAggregated(1) && rounds == RATIO + STALENESS, "waiting: aggregator "
+                + aggregatorId + " waits after " + rounds + " aggregations");
+        int count = aggregatorPro.getAggregateCount(1);
+
+        uploads.clear();
+        Node worker = Network.get(children[0]);
+        protocol(children[0], pid).processEvent(worker, pid, ActiveThreadMessage.getInstance());
+        Checks.check(uploads.isEmpty(), "waiting: worker " + children[0] + " trained on a late start");
+        for (int child : children) {
+            BoundedModelHolder holder = new BoundedModelHolder(1);
+            holder.add(aggregatorPro.getLayersWorkerModel(0));
+            MessageUp msg = new MessageUp(Network.get(child), 0, holder, last.getEpoch(), last.getRound() + 1);
+            aggregatorPro.processEvent(aggregator, pid, msg);
+        }
+        Checks.check(aggregatorPro.getAggregateCount(1) == count, "waiting: aggregator " + aggregatorId
+                + " aggregated late uploads");
+
+        // the root ends its round and sends its model down
+        int root = ETreeLearningProtocol.getLayersNodeID().get(LAYERS - 1).get(0);
+        protocol(root, pid).aggregateReceived(Network.get(root), pid, LAYERS - 1);
+        Checks.check(!aggregatorPro.hasAggregated(1), "waiting: aggregator " + aggregatorId
+                + " still waits after the model of the root came down");
+        protocol(children[0], pid).processEvent(worker, pid, ActiveThreadMessage.getInstance());
+        Checks.check(uploads.size() == 1, "waiting: worker " + children[0] + " did not train after the model of the root came down");
+        System.out.println("ETreePipelineTest: waiting ok");
+    }
+
+    private static ETreeLearningProtocol protocol(int id, int pid) {
+        return (ETreeLearningProtocol) Network.get(id).getProtocol(pid);
+    }
+
+    /**
+     * Passes the messages on and checks every upload of a worker: the worker did not train in the round
+     * before, and its aggregator does not wait for the model of the root.
+     */
+    public static class Recorder implements Transport {
+        private static final String PAR_TRANSPORT = "transport";
+        private final int transport;
+        private final int pid;
+
+        public Recorder(String prefix) {
+            transport = Configuration.getPid(prefix + "." + PAR_TRANSPORT);
+            pid = Configuration.lookupPid(PID);
+        }
+
+        @Override
+        public void send(Node src, Node dest, Object msg, int protocolID) {
+            if (msg instanceof MessageUp && ((MessageUp) msg).getLayer() == 0) {
+                MessageUp upload = (MessageUp) msg;
+                long key = ((long) src.getIndex() << 32) | upload.getRound();
+                Checks.check(trained.add(key), "worker " + src.getIndex() + " trained twice in round " + upload.getRound());
+                Checks.check(!((ETreeLearningProtocol) dest.getProtocol(pid)).hasAggregated(1), "worker "
+                        + src.getIndex() + " trained while aggregator " + dest.getIndex() + " waits");
+                uploads.add(upload);
+            }
+            ((Transport) src.getProtocol(transport)).send(src, dest, msg, protocolID);
+        }
+
+        @Override
+        public long getLatency(Node src, Node dest) {
+            return ((Transport) src.getProtocol(transport)).getLatency(src, dest);
+        }
+
+        @Override
+        public Object clone() {
+            return this;
+        }
+    }
+
+    /**
+     * Counts the aggregations of the middle layer since the root last sent its model down,
+     * which happens whenever the root aggregates.
+     */
+    public static class Staleness implements Control {
+        private static final String PAR_PROT = "protocol";
+        private final int pid;
+        private int[] since;
+        private int rootCount = 0;
+
+        public Staleness(String prefix) {
+            pid = Configuration.getPid(prefix + "." + PAR_PROT);
+        }
+
+        @Override
+        public boolean execute() {
+            ArrayList<ArrayList<Integer>> layersNodeID = ETreeLearningProtocol.getLayersNodeID();
+            ArrayList<Integer> aggregators = layersNodeID.get(1);
+            int root = layersNodeID.get(LAYERS - 1).get(0);
+            int count = protocol(root, pid).getAggregateCount(LAYERS - 1);
+            if (since == null || count != rootCount) {
+                since = new int[aggregators.size()];
+                for (int i = 0; i < since.length; i++) since[i] = protocol(aggregators.get(i), pid).getAggregateCount(1);
+                rootAggregations += count - rootCount;
+                rootCount = count;
+            }
+            for (int i = 0; i < since.length; i++) {
+                ETreeLearningProtocol pro = protocol(aggregators.get(i), pid);
+                int aggregations = pro.getAggregateCount(1) - since[i];
+                Checks.check(aggregations <= RATIO + STALENESS, "time " + CommonState.getTime() + ": aggregator "
+                        + aggregators.get(i) + " aggregated " + aggregations + " times without the model of the root");
+                Checks.check(pro.hasAggregated(1) == (aggregations == RATIO + STALENESS), "time " + CommonState.getTime()
+                        + ": aggregator " + aggregators.get(i) + " waits after " + aggregations + " aggregations");
+                if (pro.hasAggregated(1)) waiting++;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package tests;
+
+import learning.controls.ETreeRepartitionControl;
+import learning.node.ETreeNode;
+import learning.protocols.ETreeLearningProtocol;
+import peersim.config.Configuration;
+import peersim.core.CommonState;
+import peersim.core.Fallible;
+import peersim.core.Network;
+import peersim.edsim.EDSimulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Properties;
+
+/**
+ * Checks how the repartition control rewires the ETree when nodes fail: workers only, an aggregator
+ * of a middle layer, the top aggregator and every member of a group. After every repair
+ * every alive node is a worker, every group has an alive aggregator that is its own member,
+ * parents and children agree and the failed nodes are gone. Aggregators that wait too long keep their roles.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class ETreeRepartitionTest {
+    private static final int N = 100;
+    private static final int LAYERS = 4;
+    private static final String PID = "learningProtocol";
+    /* every node failed so far */
+    private static final BitSet down = new BitSet();
+
+    public static void main(String[] args) throws IOException {
+        File dir = Files.createTempDirectory("repartition").toFile();
+        File train = new File(dir, "train.dat");
+        File eval = new File(dir, "eval.dat");
+        try {
+            Checks.writeData(train, 20, 1);
+            Checks.writeData(eval, 10, 2);
+            configure(train, eval);
+
+            // node ids are only reused by one network per run, so the failures add up in one tree
+            ArrayList<ArrayList<Integer>> tree = build();
+            ArrayList<Integer> leaves = new ArrayList<>();
+            for (int id : tree.get(0)) {
+                if (!tree.get(1).contains(id) && leaves.size() < 3) leaves.add(id);
+            }
+            repair("leaves", toArray(leaves), new int[]{N - 3, 10, 3, 1});
+
+            int middle = -1;
+            for (int id : tree.get(2)) {
+                if (id != root(tree)) middle = id;
+            }
+            repair("middle aggregator", new int[]{middle}, new int[]{N - 4, 10, 3, 1});
+
+            // the root aggregates in every layer above the workers
+            repair("top aggregator", new int[]{root(tree)}, new int[]{N - 5, 10, 3, 1});
+
+            // a group of the first layer whose aggregator has no role above it and is not alone in its group there
+            int[] group = null;
+            for (int id : tree.get(1)) {
+                ETreeNode parent = (ETreeNode) Network.get(((ETreeNode) Network.get(id)).getParentNode(1));
+                if (!tree.get(2).contains(id) && parent.getChildCount(2) > 1) {
+                    group = ((ETreeNode) Network.get(id)).getChildNodes(1);
+                }
+            }
+            Checks.check(group != null, "no group of the first layer can fail as a whole");
+            repair("whole group", group, new int[]{N - 5 - group.length, 9, 3, 1});
+            checkTimeout(tree);
+        } finally {
+            train.delete();
+            eval.delete();
+            dir.delete();
+        }
+        System.out.println("ETreeRepartitionTest: ok");
+    }
+
+    /**
+     * The protocol ids are assigned when the configuration is set, so it is set once it is complete.
+     */
+    private static void configure(File train, File eval) {
+        Properties config = new Properties();
+        config.put("TOPO_FILEPATH", "res/db/data100.in");
+        config.put("LAYERS", Integer.toString(LAYERS));
+        config.put("REGULARIZATION", "0.01");
+        config.put("random.seed", "1234567890");
+        // only the initializers run, the events of the protocol are not needed
+        config.put("simulation.endtime", "0");
+        config.put("network.size", Integer.toString(N));
+        config.put("network.node", "learning.node.ETreeNode");
+        config.put("protocol.overlay", "peersim.core.IdleProtocol");
+        config.put("protocol." + PID, "learning.protocols.ETreeLearningProtocol");
+        config.put("protocol." + PID + ".layers", Integer.toString(LAYERS));
+        config.put("protocol." + PID + ".ratios", "1,1,1,1");
+        config.put("protocol." + PID + ".recvPercent", "1.0");
+        config.put("protocol." + PID + ".modelHolderName", "learning.modelHolders.BoundedModelHolder");
+        config.put("protocol." + PID + ".modelName", "learning.models.MergeableLogisticRegression");
+        config.put("protocol." + PID + ".trainingFile", train.getPath());
+        config.put("protocol." + PID + ".evaluationFile", eval.getPath());
+        config.put("init.tree", "learning.topology.ETreeLogicalTopology");
+        config.put("init.tree.layers", Integer.toString(LAYERS));
+        config.put("init.tree.recvPercent", "1.0");
+        config.put("init.tree.groups", "10,3,1,1");
+        config.put("init.tree.protocol", "overlay");
+        config.put("protocol.transport", "learning.transport.MinDelayTransport");
+        config.put("protocol." + PID + ".transport", "transport");
+        // the controls are not scheduled, they are executed after the nodes failed
+        config.put("repair.protocol", PID);
+        config.put("timeout.protocol", PID);
+        config.put("timeout.timeout", "5000");
+        Configuration.setConfig(config);
+    }
+
+    /**
+     * Builds the network and its tree.
+     */
+    private static ArrayList<ArrayList<Integer>> build() {
+        CommonState.initializeRandom(Configuration.getLong("random.seed"));
+        EDSimulator.nextExperiment();
+        ArrayList<ArrayList<Integer>> tree = ETreeLearningProtocol.getLayersNodeID();
+        checkTree("initial tree", tree);
+        Checks.check(Arrays.equals(sizes(tree), new int[]{N, 10, 3, 1}), "the initial layer sizes are "
+                + Arrays.toString(sizes(tree)));
+        return tree;
+    }
+
+    private static void repair(String name, int[] failed, int[] expectedSizes) {
+        ArrayList<ArrayList<Integer>> tree = ETreeLearningProtocol.getLayersNodeID();
+        for (int id : failed) {
+            Network.get(id).setFailState(Fallible.DOWN);
+            down.set(id);
+        }
+        new ETreeRepartitionControl("repair").execute();
+        Checks.check(ETreeLearningProtocol.getLayersNodeID() == tree, name + ": the layers are not changed in place");
+        Checks.check(Arrays.equals(sizes(tree), expectedSizes), name + ": the layer sizes are "
+                + Arrays.toString(sizes(tree)) + " instead of " + Arrays.toString(expectedSizes));
+        checkTree(name, tree);
+        System.out.println("ETreeRepartitionTest: " + name + " " + Arrays.toString(failed) + " ok");
+    }
+
+    /**
+     * Aggregators that wait too long end their round with the models they have and keep their roles.
+     * No model was sent, the simulation did not run.
+     */
+    private static void checkTimeout(ArrayList<ArrayList<Integer>> tree) {
+        String before = tree.toString();
+        int pid = Configuration.lookupPid(PID);
+        for (int id : tree.get(1)) {
+            Checks.check(!((ETreeLearningProtocol) Network.get(id).getProtocol(pid)).hasAggregated(1),
+                    "timeout: aggregator " + id + " aggregated before the timeout");
+        }
+        CommonState.setTime(ETreeLearningProtocol.getLastProgressTime() + 6000);
+        new ETreeRepartitionControl("timeout").execute();
+        Checks.check(tree.toString().equals(before), "timeout: the tree changed to " + tree);
+        checkTree("timeout", tree);
+        for (int id : tree.get(1)) {
+            Checks.check(((ETreeLearningProtocol) Network.get(id).getProtocol(pid)).hasAggregated(1),
+                    "timeout: aggregator " + id + " did not end its round");
+        }
+        Checks.check(ETreeLearningProtocol.getLastProgressTime() == CommonState.getTime(),
+                "timeout: the aggregations are not seen as progress");
+        System.out.println("ETreeRepartitionTest: timeout ok");
+    }
+
+    private static void checkTree(String name, ArrayList<ArrayList<Integer>> tree) {
+        BitSet workers = new BitSet();
+        for (int id : tree.get(0)) workers.set(id);
+        for (int id = 0; id < N; id++) {
+            Checks.check(workers.get(id) != down.get(id), name + ": node " + id + " is "
+                    + (down.get(id) ? "failed and still a worker" : "alive and not a worker"));
+        }
+        Checks.check(tree.get(LAYERS - 1).size() == 1, name + ": " + tree.get(LAYERS - 1).size() + " roots");
+
+        for (int layer = 1; layer < LAYERS; layer++) {
+            BitSet members = new BitSet();
+            for (int id : tree.get(layer)) {
+                ETreeNode aggregator = (ETreeNode) Network.get(id);
+                Checks.check(!down.get(id), name + ": failed node " + id + " aggregates in layer " + layer);
+                int[] children = aggregator.getChildNodes(layer);
+                Checks.check(children.length > 0, name + ": aggregator " + id + " of layer " + layer + " has no group");
+                boolean self = false;
+                for (int child : children) {
+                    Checks.check(tree.get(layer - 1).contains(child), name + ": child " + child + " of " + id
+                            + " is not in layer " + (layer - 1));
+                    Checks.check(!members.get(child), name + ": node " + child + " is in two groups of layer " + layer);
+                    members.set(child);
+                    Checks.check(((ETreeNode) Network.get(child)).getParentNode(layer - 1) == id, name + ": the parent of "
+                            + child + " in layer " + (layer - 1) + " is " + ((ETreeNode) Network.get(child)).getParentNode(layer - 1)
+                            + " instead of " + id);
+                    self |= child == id;
+                }
+                Checks.check(self, name + ": aggregator " + id + " of layer " + layer + " is not a member of its group");
+            }
+            Checks.check(members.cardinality() == tree.get(layer - 1).size(), name + ": " + members.cardinality()
+                    + " nodes of layer " + (layer - 1) + " have a group, instead of " + tree.get(layer - 1).size());
+        }
+    }
+
+    private static int root(ArrayList<ArrayList<Integer>> tree) {
+        return tree.get(LAYERS - 1).get(0);
+    }
+
+    private static int[] sizes(ArrayList<ArrayList<Integer>> tree) {
+        int[] sizes = new int[tree.size()];
+        for (int layer = 0; layer < tree.size(); layer++) sizes[layer] = tree.get(layer).size();
+        return sizes;
+    }
+
+    private static int[] toArray(ArrayList<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) array[i] = list.get(i);
+        return array;
+    }
+}
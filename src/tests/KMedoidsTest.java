@@ -0,0 +1,125 @@
+package tests;
+
+import learning.topology.ArrayDelayMatrix;
+import learning.topology.CSRGraph;
+import learning.topology.DelayMatrix;
+import learning.topology.KMedoids;
+import learning.topology.ShortestPaths;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Checks that the FasterPAM swap search ends in a local optimum on the sample topology:
+ * the incrementally kept total delay equals a full recomputation, every node belongs to
+ * its nearest medoid and no single swap of a medoid with another node lowers the total delay.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class KMedoidsTest {
+
+    public static void main(String[] args) {
+        String path = "res/db/data100.in";
+        DelayMatrix matrix = new ArrayDelayMatrix(ShortestPaths.allPairs(CSRGraph.load(100, path)));
+        int[] all = new int[100];
+        for (int i = 0; i < all.length; i++) all[i] = i;
+        // a shuffled part of the nodes, so list positions and node ids differ
+        Random r = new Random(7);
+        int[] shuffled = all.clone();
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = r.nextInt(i + 1);
+            int t = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = t;
+        }
+        int[] subset = new int[60];
+        System.arraycopy(shuffled, 0, subset, 0, subset.length);
+
+        for (int k : new int[]{1, 5, 10}) {
+            for (long seed = 1; seed <= 3; seed++) {
+                check(matrix, all, k, seed);
+                check(matrix, subset, k, seed);
+            }
+        }
+        System.out.println("KMedoidsTest: " + path + " ok");
+    }
+
+    private static void check(DelayMatrix matrix, int[] nodeIds, int k, long seed) {
+        String name = nodeIds.length + " nodes, k=" + k + ", seed " + seed;
+        KMedoids kMedoids = new KMedoids(matrix, nodeIds, k);
+        kMedoids.initRandom(new Random(seed));
+        long initial = kMedoids.getTotalDelay();
+        kMedoids.run();
+        long total = kMedoids.getTotalDelay();
+        int[] medoidIds = kMedoids.getMedoidIds();
+        int[] assignment = kMedoids.getAssignment();
+
+        Checks.check(total <= initial, name + ": total delay grew from " + initial + " to " + total);
+        Checks.check(total == totalDelay(matrix, nodeIds, medoidIds),
+                name + ": total delay " + total + " instead of " + totalDelay(matrix, nodeIds, medoidIds));
+        for (int o = 0; o < nodeIds.length; o++) {
+            int delay = matrix.getDelay(medoidIds[assignment[o]], nodeIds[o]);
+            Checks.check(delay == nearestDelay(matrix, nodeIds[o], medoidIds),
+                    name + ": node " + nodeIds[o] + " is not assigned to its nearest medoid");
+        }
+        for (int i = 0; i < k; i++) {
+            int medoid = medoidIds[i];
+            for (int o = 0; o < nodeIds.length; o++) {
+                if (nodeIds[o] == medoid) {
+                    Checks.check(assignment[o] == i, name + ": medoid " + medoid + " is not in its own cluster");
+                }
+            }
+        }
+
+        // no swap of a medoid with another node improves the total delay
+        for (int i = 0; i < k; i++) {
+            int medoid = medoidIds[i];
+            for (int candidate : nodeIds) {
+                if (contains(medoidIds, candidate)) continue;
+                medoidIds[i] = candidate;
+                long swapped = totalDelay(matrix, nodeIds, medoidIds);
+                Checks.check(swapped >= total, name + ": swapping " + medoid + " with " + candidate
+                        + " gives " + swapped + " < " + total);
+            }
+            medoidIds[i] = medoid;
+        }
+
+        // every node in exactly one cluster, the medoid of the cluster at the end
+        ArrayList<ArrayList<Integer>> clusters = kMedoids.getClusterList();
+        Checks.check(clusters.size() == k, name + ": " + clusters.size() + " clusters");
+        int[] seen = new int[matrix.size()];
+        for (int i = 0; i < k; i++) {
+            ArrayList<Integer> cluster = clusters.get(i);
+            Checks.check(cluster.get(cluster.size() - 1) == medoidIds[i], name + ": cluster " + i
+                    + " ends with " + cluster.get(cluster.size() - 1) + " instead of its medoid " + medoidIds[i]);
+            for (int j = 0; j < cluster.size() - 1; j++) seen[cluster.get(j)]++;
+        }
+        for (int id : nodeIds) {
+            Checks.check(seen[id] == 1, name + ": node " + id + " is in " + seen[id] + " clusters");
+            seen[id] = 0;
+        }
+        for (int id = 0; id < seen.length; id++) {
+            Checks.check(seen[id] == 0, name + ": node " + id + " is not partitioned but clustered");
+        }
+    }
+
+    private static long totalDelay(DelayMatrix matrix, int[] nodeIds, int[] medoidIds) {
+        long total = 0;
+        for (int id : nodeIds) total += nearestDelay(matrix, id, medoidIds);
+        return total;
+    }
+
+    private static int nearestDelay(DelayMatrix matrix, int id, int[] medoidIds) {
+        int best = Integer.MAX_VALUE;
+        for (int medoid : medoidIds) best = Math.min(best, matrix.getDelay(medoid, id));
+        return best;
+    }
+
+    private static boolean contains(int[] ids, int id) {
+        for (int x : ids) {
+            if (x == id) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,81 @@
+package tests;
+
+import learning.topology.CSRGraph;
+import learning.topology.LazyDelayMatrix;
+import learning.topology.ShortestPaths;
+import learning.utils.Parallel;
+
+import java.util.Random;
+
+/**
+ * Checks the on demand delay rows against the dense all-pairs matrix with a small cache,
+ * so rows are evicted and computed again, from one and from several threads.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class LazyDelayMatrixTest {
+    private static final int MAX_ROWS = 7;
+
+    public static void main(String[] args) {
+        checkTopology(100, 20000);
+        checkTopology(1000, 5000);
+    }
+
+    private static void checkTopology(int n, int lookups) {
+        String path = "res/db/data" + n + ".in";
+        CSRGraph graph = CSRGraph.load(n, path);
+        int[][] expected = ShortestPaths.allPairs(graph);
+        LazyDelayMatrix matrix = new LazyDelayMatrix(graph, MAX_ROWS);
+        Checks.check(matrix.getMaxRows() == MAX_ROWS, path + ": " + matrix.getMaxRows() + " rows");
+
+        checkRandom(path, matrix, expected, new Random(n), lookups);
+        checkRows(path, matrix, expected);
+        checkParallel(path, matrix, expected, lookups);
+        matrix.clear();
+        checkRandom(path, matrix, expected, new Random(n + 1), lookups);
+        Checks.check(matrix.memoryBytes() <= 4L * n * MAX_ROWS + 9L * n,
+                path + ": " + matrix.memoryBytes() + " bytes for " + MAX_ROWS + " rows");
+        System.out.println("LazyDelayMatrixTest: " + path + " ok");
+    }
+
+    private static void checkRandom(String path, LazyDelayMatrix matrix, int[][] expected, Random r, int lookups) {
+        int n = expected.length;
+        for (int k = 0; k < lookups; k++) {
+            int s = r.nextInt(n);
+            int t = r.nextInt(n);
+            int delay = matrix.getDelay(s, t);
+            Checks.check(delay == expected[s][t], path + ": delay " + s + "->" + t
+                    + " is " + delay + " instead of " + expected[s][t]);
+        }
+    }
+
+    private static void checkRows(String path, LazyDelayMatrix matrix, int[][] expected) {
+        int n = expected.length;
+        for (int s = n - 1; s >= 0; s--) {
+            int[] row = matrix.getRow(s);
+            for (int t = 0; t < n; t++) {
+                Checks.check(row[t] == expected[s][t], path + ": row " + s + " at " + t
+                        + " is " + row[t] + " instead of " + expected[s][t]);
+            }
+        }
+    }
+
+    private static void checkParallel(final String path, final LazyDelayMatrix matrix, final int[][] expected,
+                                      final int lookups) {
+        final int n = expected.length;
+        Parallel.forRange(0, lookups, 1000, new Parallel.RangeTask() {
+            @Override
+            public void run(int from, int to) {
+                Random r = new Random(from);
+                for (int k = from; k < to; k++) {
+                    int s = r.nextInt(n);
+                    int t = r.nextInt(n);
+                    int delay = matrix.getDelay(s, t);
+                    Checks.check(delay == expected[s][t], path + ": parallel delay " + s + "->" + t
+                            + " is " + delay + " instead of " + expected[s][t]);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,102 @@
+package tests;
+
+import learning.topology.CSRGraph;
+import learning.topology.DelayMatrix;
+import learning.topology.MappedDelayMatrix;
+import learning.topology.ShortestPaths;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Checks the memory mapped delay cache: a missing, truncated or foreign cache file is rebuilt,
+ * a valid one is mapped, and changed rows never reach the cache file.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class MappedDelayMatrixTest {
+    private static final int N = 100;
+    private static final String PATH = "res/db/data100.in";
+
+    public static void main(String[] args) throws IOException {
+        CSRGraph graph = CSRGraph.load(N, PATH);
+        int[][] expected = ShortestPaths.allPairs(graph);
+        File dir = Files.createTempDirectory("delaycache").toFile();
+        try {
+            MappedDelayMatrix matrix = open(graph, dir, expected, true, "missing cache");
+            File file = matrix.getFile();
+            open(graph, dir, expected, false, "valid cache");
+
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(raf.length() - 4);
+            } finally {
+                raf.close();
+            }
+            open(graph, dir, expected, true, "truncated cache");
+
+            // the topology hash is stored from byte 16 of the header
+            raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.seek(16);
+                int b = raf.read();
+                raf.seek(16);
+                raf.write(b ^ 0xff);
+            } finally {
+                raf.close();
+            }
+            open(graph, dir, expected, true, "cache of another topology");
+
+            checkPrivateRows(graph, dir, expected);
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File f : files) f.delete();
+            }
+            dir.delete();
+        }
+        System.out.println("MappedDelayMatrixTest: " + PATH + " ok");
+    }
+
+    private static MappedDelayMatrix open(CSRGraph graph, File dir, int[][] expected, boolean rebuilt, String name) {
+        MappedDelayMatrix matrix = MappedDelayMatrix.openOrBuild(graph, PATH, dir);
+        Checks.check(matrix.isRebuilt() == rebuilt, name + ": rebuilt is " + matrix.isRebuilt());
+        compare(name, matrix, expected);
+        return matrix;
+    }
+
+    /**
+     * A changed row is seen through the matrix, while the cache file keeps its bytes
+     * and a new mapping still reads the original delays.
+     */
+    private static void checkPrivateRows(CSRGraph graph, File dir, int[][] expected) throws IOException {
+        MappedDelayMatrix matrix = open(graph, dir, expected, false, "valid cache");
+        byte[] before = Files.readAllBytes(matrix.getFile().toPath());
+        int[] row = expected[3].clone();
+        for (int t = 0; t < N; t++) {
+            if (t != 3) row[t] += 1000;
+        }
+        matrix.setRow(3, row);
+        for (int t = 0; t < N; t++) {
+            Checks.check(matrix.getDelay(3, t) == row[t] && matrix.getDelay(t, 3) == row[t],
+                    "changed row: delay 3->" + t + " is " + matrix.getDelay(3, t) + " instead of " + row[t]);
+        }
+        Checks.check(matrix.getDelay(4, 5) == expected[4][5], "changed row: an unchanged delay moved");
+        byte[] after = Files.readAllBytes(matrix.getFile().toPath());
+        Checks.check(Arrays.equals(before, after), "changed row: the cache file was modified");
+        open(graph, dir, expected, false, "cache after a changed row");
+    }
+
+    private static void compare(String name, DelayMatrix matrix, int[][] expected) {
+        for (int s = 0; s < N; s++) {
+            for (int t = 0; t < N; t++) {
+                Checks.check(matrix.getDelay(s, t) == expected[s][t], name + ": delay " + s + "->" + t
+                        + " is " + matrix.getDelay(s, t) + " instead of " + expected[s][t]);
+            }
+        }
+    }
+}
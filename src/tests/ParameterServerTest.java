@@ -0,0 +1,94 @@
+package tests;
+
+import learning.topology.ArrayDelayMatrix;
+import learning.topology.CSRGraph;
+import learning.topology.DelayMatrix;
+import learning.topology.ShortestPaths;
+import learning.topology.TopoUtil;
+
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Checks the quickselect scan of the parameter server placement against the former
+ * priority queue scan on random node lists of the sample topologies.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class ParameterServerTest {
+    private static final double[] RATIOS = {1.0, 0.9, 0.75, 0.5, 0.1};
+
+    public static void main(String[] args) {
+        checkTopology(100, 200);
+        checkTopology(1000, 20);
+    }
+
+    private static void checkTopology(int n, int lists) {
+        String path = "res/db/data" + n + ".in";
+        DelayMatrix matrix = new ArrayDelayMatrix(ShortestPaths.allPairs(CSRGraph.load(n, path)));
+        Random r = new Random(n);
+        for (int l = 0; l <= lists; l++) {
+            // the last list holds every node
+            int size = l == lists ? n : 2 + r.nextInt(n - 1);
+            ArrayList<Integer> nodeIdList = randomList(n, size, r);
+            for (double ratio : RATIOS) {
+                int expected = priorityQueueServer(matrix, nodeIdList, ratio);
+                int id = TopoUtil.findParameterServerId(matrix, nodeIdList, ratio);
+                Checks.check(id == expected, path + ": " + size + " nodes at ratio " + ratio
+                        + " choose " + id + " instead of " + expected);
+                ArrayList<Integer> ids = TopoUtil.findParameterServerIds(matrix, nodeIdList, ratio, Math.min(3, size));
+                Checks.check(ids.get(0) == expected, path + ": the first of several servers is "
+                        + ids.get(0) + " instead of " + expected);
+            }
+        }
+        System.out.println("ParameterServerTest: " + path + " ok");
+    }
+
+    private static ArrayList<Integer> randomList(int n, int size, Random r) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) ids[i] = i;
+        ArrayList<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int j = i + r.nextInt(n - i);
+            int t = ids[i];
+            ids[i] = ids[j];
+            ids[j] = t;
+            list.add(ids[i]);
+        }
+        return list;
+    }
+
+    /**
+     * The former placement: the k largest delays of every node are kept in a priority queue
+     * and the smallest of them is the delay at the aggregation ratio.
+     */
+    private static int priorityQueueServer(DelayMatrix minDelayMatrix, ArrayList<Integer> nodeIdList,
+                                           double aggregationRatio) {
+        ArrayList<Integer> theDelaysAtAggregationRatio = new ArrayList<>();
+        int k = (int) Math.round(nodeIdList.size() * (1 - aggregationRatio)) + 1;
+        for (int i = 0; i < nodeIdList.size(); i++) {
+            PriorityQueue<Integer> largeK = new PriorityQueue<>(k + 1);
+            for (int j = 0; j < nodeIdList.size(); j++) {
+                if (i == j) {
+                    continue;
+                }
+                largeK.add(minDelayMatrix.getDelay(nodeIdList.get(i), nodeIdList.get(j)));
+                if (largeK.size() > k) {
+                    largeK.poll();
+                }
+            }
+            theDelaysAtAggregationRatio.add(largeK.poll());
+        }
+        int selectedNodeId = nodeIdList.get(0);
+        int minDelay = theDelaysAtAggregationRatio.get(0);
+        for (int nodeIndex = 1; nodeIndex < theDelaysAtAggregationRatio.size(); nodeIndex++) {
+            if (theDelaysAtAggregationRatio.get(nodeIndex) < minDelay) {
+                minDelay = theDelaysAtAggregationRatio.get(nodeIndex);
+                selectedNodeId = nodeIdList.get(nodeIndex);
+            }
+        }
+        return selectedNodeId;
+    }
+}
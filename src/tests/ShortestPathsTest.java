@@ -0,0 +1,58 @@
+package tests;
+
+import learning.topology.CSRGraph;
+import learning.topology.DelayMatrix;
+import learning.topology.ShortestPaths;
+import learning.topology.TopoUtil;
+
+/**
+ * Checks the parallel all-pairs Dijkstra searches against Floyd-Warshall on the sample topologies.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class ShortestPathsTest {
+
+    public static void main(String[] args) {
+        checkTopology(100);
+        checkTopology(1000);
+    }
+
+    private static void checkTopology(int n) {
+        String path = "res/db/data" + n + ".in";
+        CSRGraph graph = CSRGraph.load(n, path);
+        int[][] expected = floyd(graph);
+        int[][] allPairs = TopoUtil.generateMinDelayMatrix(graph);
+        ShortestPaths engine = new ShortestPaths(graph);
+        for (int s = 0; s < n; s++) {
+            int[] row = engine.singleSource(s);
+            for (int t = 0; t < n; t++) {
+                Checks.check(allPairs[s][t] == expected[s][t], path + ": all pairs delay " + s + "->" + t
+                        + " is " + allPairs[s][t] + " instead of " + expected[s][t]);
+                Checks.check(row[t] == expected[s][t], path + ": single source delay " + s + "->" + t
+                        + " is " + row[t] + " instead of " + expected[s][t]);
+            }
+        }
+        System.out.println("ShortestPathsTest: " + path + " ok");
+    }
+
+    private static int[][] floyd(CSRGraph graph) {
+        int n = graph.size();
+        int[][] d = new int[n][n];
+        for (int u = 0; u < n; u++) {
+            for (int v = 0; v < n; v++) d[u][v] = u == v ? 0 : graph.getDelay(u, v);
+        }
+        for (int k = 0; k < n; k++) {
+            int[] dk = d[k];
+            for (int i = 0; i < n; i++) {
+                int dik = d[i][k];
+                if (dik == DelayMatrix.UNREACHABLE) continue;
+                int[] di = d[i];
+                for (int j = 0; j < n; j++) {
+                    if (dk[j] != DelayMatrix.UNREACHABLE && dik + dk[j] < di[j]) di[j] = dik + dk[j];
+                }
+            }
+        }
+        return d;
+    }
+}
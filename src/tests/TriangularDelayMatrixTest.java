@@ -0,0 +1,89 @@
+package tests;
+
+import learning.topology.CSRGraph;
+import learning.topology.DelayMatrix;
+import learning.topology.ShortestPaths;
+import learning.topology.TriangularDelayMatrix;
+
+/**
+ * Checks the compact triangular delays against the dense all-pairs matrix,
+ * including unreachable nodes and rows that do not fit the current delay width.
+ *
+ * @author sshpark
+ * @date 18/10/2026
+ */
+public class TriangularDelayMatrixTest {
+
+    public static void main(String[] args) {
+        checkTopology(100);
+        checkTopology(1000);
+        checkUnreachable();
+        checkWidening();
+    }
+
+    private static void checkTopology(int n) {
+        String path = "res/db/data" + n + ".in";
+        CSRGraph graph = CSRGraph.load(n, path);
+        int[][] expected = ShortestPaths.allPairs(graph);
+        TriangularDelayMatrix matrix = TriangularDelayMatrix.build(graph);
+        Checks.check(matrix.size() == n, path + ": size is " + matrix.size());
+        checkEquals(path, matrix, expected);
+        System.out.println("TriangularDelayMatrixTest: " + path + " ok, "
+                + matrix.getDelayBytes() + " byte delays");
+    }
+
+    /**
+     * A path 0 - 1 - 2 and a node 3 without links.
+     */
+    private static CSRGraph pathGraph() {
+        return CSRGraph.fromEdges(4, new int[]{0, 1}, new int[]{1, 2}, new int[]{5, 7}, 2);
+    }
+
+    private static void checkUnreachable() {
+        CSRGraph graph = pathGraph();
+        TriangularDelayMatrix matrix = TriangularDelayMatrix.build(graph);
+        Checks.check(matrix.getDelayBytes() == 1, "small delays use " + matrix.getDelayBytes() + " bytes");
+        Checks.check(matrix.getDelay(0, 2) == 12 && matrix.getDelay(2, 0) == 12,
+                "delay 0->2 is " + matrix.getDelay(0, 2));
+        for (int i = 0; i < 3; i++) {
+            Checks.check(matrix.getDelay(i, 3) == DelayMatrix.UNREACHABLE
+                    && matrix.getDelay(3, i) == DelayMatrix.UNREACHABLE, "node 3 is reachable from " + i);
+        }
+        Checks.check(matrix.getDelay(3, 3) == 0, "delay 3->3 is " + matrix.getDelay(3, 3));
+        System.out.println("TriangularDelayMatrixTest: unreachable ok");
+    }
+
+    private static void checkWidening() {
+        TriangularDelayMatrix matrix = TriangularDelayMatrix.build(pathGraph());
+        int u = DelayMatrix.UNREACHABLE;
+
+        // 300 does not fit into 1 byte, 255 is the unreachable code of 1 byte delays
+        matrix.setRow(0, new int[]{0, 300, 255, u});
+        Checks.check(matrix.getDelayBytes() == 2, "widened to " + matrix.getDelayBytes() + " bytes");
+        checkEquals("2 byte row", matrix, new int[][]{
+                {0, 300, 255, u},
+                {300, 0, 7, u},
+                {255, 7, 0, u},
+                {u, u, u, 0}});
+
+        // 70000 does not fit into 2 bytes
+        matrix.setRow(3, new int[]{70000, u, 65535, 0});
+        Checks.check(matrix.getDelayBytes() == 4, "widened to " + matrix.getDelayBytes() + " bytes");
+        checkEquals("4 byte row", matrix, new int[][]{
+                {0, 300, 255, 70000},
+                {300, 0, 7, u},
+                {255, 7, 0, 65535},
+                {70000, u, 65535, 0}});
+        System.out.println("TriangularDelayMatrixTest: widening ok");
+    }
+
+    private static void checkEquals(String name, DelayMatrix matrix, int[][] expected) {
+        for (int s = 0; s < expected.length; s++) {
+            for (int t = 0; t < expected.length; t++) {
+                int delay = matrix.getDelay(s, t);
+                Checks.check(delay == expected[s][t], name + ": delay " + s + "->" + t
+                        + " is " + delay + " instead of " + expected[s][t]);
+            }
+        }
+    }
+}